@@ -0,0 +1,65 @@
+package com.jyula.jyulaapi;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+@EnableScheduling
+public class DispatchConfig {
+
+    @Value("${app.dispatch.workers}")
+    private int workers;
+
+    @Value("${app.dispatch.maxInFlight}")
+    private int maxInFlight;
+
+    @Value("${app.dispatch.schedulerThreads}")
+    private int schedulerThreads;
+
+    /**
+     * One thread per scheduled loop, so a long retry sweep blocked on provider throttling never
+     * delays the dispatch poll or the progress streams.
+     */
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(schedulerThreads);
+        scheduler.setThreadNamePrefix("scheduled-");
+        return scheduler;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor campaignDispatchExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(workers);
+        executor.setThreadNamePrefix("campaign-dispatch-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * Runs provider calls on virtual threads when the running JVM offers them, otherwise on a
+     * platform pool sized to the in-flight limit enforced by the dispatcher.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService mailDispatchExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException ex) {
+            return Executors.newFixedThreadPool(maxInFlight, new CustomizableThreadFactory("mail-dispatch-"));
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package com.jyula.jyulaapi;
 
+import com.jyula.jyulaapi.core.enterprise.CustomJpaRepository;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.jedis.JedisClientConfiguration;
 import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
@@ -16,6 +18,7 @@ import java.time.Duration;
 
 @EnableWebMvc
 @SpringBootApplication
+@EnableJpaRepositories(repositoryBaseClass = CustomJpaRepository.class)
 public class JyulaApiApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,50 @@
+package com.jyula.jyulaapi.application.adapters;
+
+import com.jyula.jyulaapi.core.providers.MailSenderProvider;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public abstract class BatchingMailSenderAdapter implements MailSenderProvider {
+    private final int batchSize;
+
+    protected BatchingMailSenderAdapter(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive, got " + batchSize);
+        }
+
+        this.batchSize = batchSize;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    @Override
+    public List<SendMailResult> sendBatch(List<SendMailRequest> requests) {
+        List<SendMailResult> results = new ArrayList<>(requests.size());
+
+        for (int from = 0; from < requests.size(); from += batchSize) {
+            List<SendMailRequest> chunk = requests.subList(from, Math.min(from + batchSize, requests.size()));
+            results.addAll(sendChunk(chunk));
+        }
+
+        return results;
+    }
+
+    /**
+     * Sends at most {@link #getBatchSize()} requests in a single provider call and returns one
+     * result per request, in order. Transport errors must be reported as failed results.
+     */
+    protected abstract List<SendMailResult> sendChunk(List<SendMailRequest> chunk);
+
+    protected static List<SendMailResult> failAll(List<SendMailRequest> chunk, Exception cause) {
+        return failAll(chunk, cause, null);
+    }
+
+    protected static List<SendMailResult> failAll(List<SendMailRequest> chunk, Exception cause, Integer statusCode) {
+        return chunk.stream()
+                .map(request -> SendMailResult.failed(request, new SendMailException(request, cause, statusCode)))
+                .toList();
+    }
+}
@@ -0,0 +1,47 @@
+package com.jyula.jyulaapi.application.adapters;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stand-in for the real provider under the {@code local} profile. It goes through the same
+ * batching path as {@link ResendMailSenderAdapter} but only logs what would have been sent.
+ */
+@Service
+@Profile("local")
+public class LocalMailSenderAdapter extends BatchingMailSenderAdapter {
+    private static final Logger logger = LoggerFactory.getLogger(LocalMailSenderAdapter.class);
+
+    private final AtomicLong providerCalls = new AtomicLong();
+
+    public LocalMailSenderAdapter(@Value("${app.resend.batchSize}") int batchSize) {
+        super(batchSize);
+    }
+
+    public long getProviderCalls() {
+        return providerCalls.get();
+    }
+
+    @Override
+    public SendMailResponse send(SendMailRequest request) throws SendMailException {
+        providerCalls.incrementAndGet();
+        logger.info("Local send to {} with subject '{}'", request.getTo(), request.getSubject());
+        return new SendMailResponse(UUID.randomUUID().toString());
+    }
+
+    @Override
+    protected List<SendMailResult> sendChunk(List<SendMailRequest> chunk) {
+        providerCalls.incrementAndGet();
+        logger.info("Local batch of {} emails", chunk.size());
+        return chunk.stream()
+                .map(request -> SendMailResult.sent(request, new SendMailResponse(UUID.randomUUID().toString())))
+                .toList();
+    }
+}
@@ -1,34 +1,161 @@
 package com.jyula.jyulaapi.application.adapters;
 
-import com.jyula.jyulaapi.core.providers.MailSenderProvider;
-import com.resend.Resend;
-import com.resend.core.exception.ResendException;
-import com.resend.services.emails.model.SendEmailRequest;
-import com.resend.services.emails.model.SendEmailResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jyula.jyulaapi.core.enterprise.JsonStrings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
 @Service
-public class ResendMailSenderAdapter implements MailSenderProvider {
-    private final Resend resend;
+@Profile("!local")
+public class ResendMailSenderAdapter extends BatchingMailSenderAdapter {
+    private static final URI EMAIL_ENDPOINT = URI.create("https://api.resend.com/emails");
+    private static final URI BATCH_ENDPOINT = URI.create("https://api.resend.com/emails/batch");
+    private static final int MAX_BATCH_SIZE = 100;
+    private static final byte[] FROM_FIELD = "{\"from\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TO_FIELD = ",\"to\":[".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SUBJECT_FIELD = "],\"subject\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HTML_FIELD = ",\"html\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TEXT_FIELD = ",\"text\":".getBytes(StandardCharsets.US_ASCII);
+
+    private final String apiKey;
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient;
 
-    public ResendMailSenderAdapter() {
-        this.resend = new Resend("");
+    public ResendMailSenderAdapter(@Value("${app.resend.apiKey}") String apiKey,
+                                   @Value("${app.resend.batchSize}") int batchSize,
+                                   ObjectMapper objectMapper) {
+        super(Math.min(batchSize, MAX_BATCH_SIZE));
+        this.apiKey = apiKey;
+        this.objectMapper = objectMapper;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
     }
 
+    /**
+     * Sends one email over the same HTTP path as batches, so a 429 or 5xx reaches the throttling
+     * layer through {@link SendMailException#getStatusCode()}.
+     */
     @Override
     public SendMailResponse send(SendMailRequest request) throws SendMailException {
-        SendEmailRequest resendRequest = SendEmailRequest.builder()
-                .from(request.getFrom())
-                .to(request.getTo())
-                .subject(request.getSubject())
-                .html(request.getContent())
-                .build();
+        ByteArrayOutputStream body = new ByteArrayOutputStream(1024);
+        writeEmail(body, request);
 
         try {
-            SendEmailResponse response = resend.emails().send(resendRequest);
-            return new SendMailResponse(response.getId());
-        } catch (ResendException e) {
+            HttpResponse<byte[]> response = post(EMAIL_ENDPOINT, body.toByteArray());
+
+            if (response.statusCode() / 100 != 2) {
+                throw new SendMailException(request, failure("Resend", response), response.statusCode());
+            }
+
+            return new SendMailResponse(objectMapper.readTree(response.body()).path("id").asText(null));
+        } catch (IOException e) {
+            throw new SendMailException(request, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             throw new SendMailException(request, e);
         }
     }
+
+    @Override
+    protected List<SendMailResult> sendChunk(List<SendMailRequest> chunk) {
+        try {
+            HttpResponse<byte[]> response = post(BATCH_ENDPOINT, encodeBatch(chunk));
+
+            if (response.statusCode() / 100 != 2) {
+                return failAll(chunk, failure("Resend batch", response), response.statusCode());
+            }
+
+            JsonNode data = objectMapper.readTree(response.body()).path("data");
+            List<SendMailResult> results = new ArrayList<>(chunk.size());
+
+            for (int i = 0; i < chunk.size(); i++) {
+                String id = data.path(i).path("id").asText(null);
+                results.add(SendMailResult.sent(chunk.get(i), new SendMailResponse(id)));
+            }
+
+            return results;
+        } catch (IOException e) {
+            return failAll(chunk, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return failAll(chunk, e);
+        }
+    }
+
+    private HttpResponse<byte[]> post(URI endpoint, byte[] body) throws IOException, InterruptedException {
+        HttpRequest httpRequest = HttpRequest.newBuilder(endpoint)
+                .header("Authorization", "Bearer " + apiKey)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+
+        return httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static IOException failure(String call, HttpResponse<byte[]> response) {
+        return new IOException(call + " responded with status " + response.statusCode()
+                + ": " + new String(response.body(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes the batch payload directly as UTF-8. Personalized requests copy their template's
+     * pre-encoded chunks and only escape the recipient's values, so the cost per recipient does
+     * not depend on the size of the body.
+     */
+    static byte[] encodeBatch(List<SendMailRequest> chunk) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(1024 * chunk.size());
+        out.write('[');
+
+        for (int i = 0; i < chunk.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+
+            writeEmail(out, chunk.get(i));
+        }
+
+        out.write(']');
+        return out.toByteArray();
+    }
+
+    private static void writeEmail(ByteArrayOutputStream out, SendMailRequest request) {
+        Personalization personalization = request.getPersonalization();
+
+        out.writeBytes(FROM_FIELD);
+        JsonStrings.write(out, request.getFrom());
+        out.writeBytes(TO_FIELD);
+        JsonStrings.write(out, request.getTo());
+        out.writeBytes(SUBJECT_FIELD);
+
+        if (personalization != null) {
+            personalization.subject().writeJson(personalization.values(), out);
+            out.writeBytes(HTML_FIELD);
+            personalization.body().writeJson(personalization.values(), out);
+
+            if (personalization.text() != null) {
+                out.writeBytes(TEXT_FIELD);
+                personalization.text().writeJson(personalization.values(), out);
+            }
+        } else {
+            JsonStrings.write(out, request.getSubject());
+            out.writeBytes(HTML_FIELD);
+            JsonStrings.write(out, request.getContent());
+        }
+
+        out.write('}');
+    }
 }
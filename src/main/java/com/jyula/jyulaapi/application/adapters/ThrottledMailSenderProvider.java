@@ -0,0 +1,132 @@
+package com.jyula.jyulaapi.application.adapters;
+
+import com.jyula.jyulaapi.core.enterprise.TokenBucket;
+import com.jyula.jyulaapi.core.providers.MailSenderProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Paces calls to the configured provider adapter with a {@link TokenBucket}. One token is one
+ * provider call, so a batch call costs the same as a single send, which is how the provider
+ * counts its rate limit. The rate halves whenever the provider answers with a retryable error
+ * (429 or 5xx) and creeps back towards {@code app.throttle.callsPerSecond} on every clean call.
+ * Items rejected that way are sent again, up to {@code app.throttle.maxRetries} times, before they
+ * are reported as failed.
+ */
+@Primary
+@Component
+public class ThrottledMailSenderProvider implements MailSenderProvider {
+    private static final Logger logger = LoggerFactory.getLogger(ThrottledMailSenderProvider.class);
+
+    private final BatchingMailSenderAdapter delegate;
+    private final TokenBucket bucket;
+    private final double maxRate;
+    private final double minRate;
+    private final double recoveryStep;
+    private final int maxRetries;
+
+    public ThrottledMailSenderProvider(BatchingMailSenderAdapter delegate,
+                                       @Value("${app.throttle.callsPerSecond}") double callsPerSecond,
+                                       @Value("${app.throttle.maxRetries}") int maxRetries) {
+        this.delegate = delegate;
+        this.bucket = new TokenBucket(callsPerSecond);
+        this.maxRate = callsPerSecond;
+        this.minRate = callsPerSecond / 16;
+        this.recoveryStep = callsPerSecond / 10;
+        this.maxRetries = maxRetries;
+    }
+
+    public double getCurrentRate() {
+        return bucket.getRate();
+    }
+
+    @Override
+    public SendMailResponse send(SendMailRequest request) throws SendMailException {
+        try {
+            bucket.acquire(1);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SendMailException(request, ex);
+        }
+
+        try {
+            SendMailResponse response = delegate.send(request);
+            speedUp();
+            return response;
+        } catch (SendMailException ex) {
+            if (ex.isRetryable()) {
+                slowDown(ex.getStatusCode());
+            }
+            throw ex;
+        }
+    }
+
+    @Override
+    public List<SendMailResult> sendBatch(List<SendMailRequest> requests) {
+        List<SendMailResult> results = new ArrayList<>(requests.size());
+        int batchSize = delegate.getBatchSize();
+
+        for (int from = 0; from < requests.size(); from += batchSize) {
+            results.addAll(sendChunk(requests.subList(from, Math.min(from + batchSize, requests.size()))));
+        }
+
+        return results;
+    }
+
+    private List<SendMailResult> sendChunk(List<SendMailRequest> chunk) {
+        SendMailResult[] results = new SendMailResult[chunk.size()];
+        List<Integer> pending = IntStream.range(0, chunk.size()).boxed().toList();
+
+        for (int attempt = 0; !pending.isEmpty(); attempt++) {
+            try {
+                bucket.acquire(1);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                pending.forEach(i -> results[i] = SendMailResult.failed(
+                        chunk.get(i), new SendMailException(chunk.get(i), ex)));
+                break;
+            }
+
+            List<SendMailResult> attemptResults = delegate.sendBatch(pending.stream().map(chunk::get).toList());
+            List<Integer> rejected = new ArrayList<>();
+            Integer statusCode = null;
+
+            for (int i = 0; i < pending.size(); i++) {
+                SendMailResult result = attemptResults.get(i);
+                results[pending.get(i)] = result;
+
+                if (!result.isSent() && result.error().isRetryable()) {
+                    rejected.add(pending.get(i));
+                    statusCode = result.error().getStatusCode();
+                }
+            }
+
+            if (rejected.isEmpty()) {
+                speedUp();
+                break;
+            }
+
+            slowDown(statusCode);
+            pending = attempt < maxRetries ? rejected : List.of();
+        }
+
+        return Arrays.asList(results);
+    }
+
+    private void speedUp() {
+        bucket.adjustRate(rate -> Math.min(maxRate, rate + recoveryStep));
+    }
+
+    private void slowDown(Integer statusCode) {
+        double rate = bucket.adjustRate(current -> Math.max(minRate, current / 2));
+        logger.warn("Mail provider answered {}, throttling to {} calls/s", statusCode, rate);
+    }
+}
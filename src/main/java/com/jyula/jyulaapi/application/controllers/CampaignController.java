@@ -1,55 +1,93 @@
 package com.jyula.jyulaapi.application.controllers;
 
+import com.jyula.jyulaapi.application.workers.CampaignProgressPublisher;
 import com.jyula.jyulaapi.core.enterprise.BussinessException;
+import com.jyula.jyulaapi.core.enterprise.CountMode;
+import com.jyula.jyulaapi.core.enterprise.KeysetPage;
 import com.jyula.jyulaapi.core.entities.Campaign;
 import com.jyula.jyulaapi.core.entities.Contact;
+import com.jyula.jyulaapi.core.entities.Segment;
 import com.jyula.jyulaapi.core.representations.CampaignRepresentation;
 import com.jyula.jyulaapi.core.representations.ContactRepresentation;
+import com.jyula.jyulaapi.core.services.CampaignProgressTracker;
 import com.jyula.jyulaapi.core.services.CampaignService;
+import com.jyula.jyulaapi.core.services.SegmentService;
 import org.modelmapper.ModelMapper;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import javax.validation.Valid;
-import java.util.List;
+import java.net.URI;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/v1/campaigns")
 public class CampaignController extends AbstractController {
     private final ModelMapper mapper;
     private final CampaignService service;
+    private final CampaignProgressTracker progressTracker;
+    private final CampaignProgressPublisher progressPublisher;
+    private final SegmentService segmentService;
 
-    public CampaignController(ModelMapper mapper, CampaignService service) {
+    public CampaignController(ModelMapper mapper, CampaignService service,
+                              CampaignProgressTracker progressTracker,
+                              CampaignProgressPublisher progressPublisher,
+                              SegmentService segmentService) {
         this.mapper = mapper;
         this.service = service;
+        this.progressTracker = progressTracker;
+        this.progressPublisher = progressPublisher;
+        this.segmentService = segmentService;
     }
 
     @PostMapping("/send")
-    public ResponseEntity<?> send(
+    public ResponseEntity<CampaignRepresentation.CampaignAcceptedResponse> send(
             @RequestBody @Valid CampaignRepresentation.CreateCampaign representation) {
 
-        service.send(representation);
-        return ResponseEntity.ok().build();
+        Campaign campaign = service.send(representation);
+        CampaignRepresentation.CampaignAcceptedResponse response = CampaignRepresentation.CampaignAcceptedResponse.builder()
+                .campaignId(campaign.getId())
+                .audienceSize(campaign.getAudienceSize())
+                .build();
+
+        return ResponseEntity.accepted().location(URI.create("/api/v1/campaigns/" + campaign.getId())).body(response);
     }
 
     @GetMapping
-    public ResponseEntity<PageImpl<CampaignRepresentation.CampaignResponse>> findAll(
+    public ResponseEntity<Slice<CampaignRepresentation.CampaignResponse>> findAll(
             @RequestParam(required = false) String filter,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "exact") String count) {
 
-        Page<Campaign> campaigns = service.findAll(filter, PageRequest.of(page, size));
-
-        List<CampaignRepresentation.CampaignResponse> responses = campaigns.stream()
-                .map((campaign -> CampaignRepresentation.CampaignResponse.from(mapper, campaign))).toList();
+        Slice<Campaign> campaigns = service.findAll(filter, PageRequest.of(page, size), CountMode.fromName(count));
+        Map<Long, Long> memberCounts = countSegmentMembers(campaigns.getContent());
+        return ResponseEntity.ok(campaigns.map(campaign ->
+                CampaignRepresentation.CampaignResponse.from(mapper, campaign, memberCounts)));
+    }
 
-        PageImpl<CampaignRepresentation.CampaignResponse> responsesPage = new PageImpl<>(
-                responses, campaigns.getPageable(), campaigns.getTotalElements());
+    /**
+     * Keyset variant of {@link #findAll(String, int, int, String)}, selected by the {@code after}
+     * parameter: pass an empty value for the first page and the returned {@code next} cursor
+     * afterwards.
+     */
+    @GetMapping(params = "after")
+    public ResponseEntity<KeysetPage<CampaignRepresentation.CampaignResponse>> findAllAfter(
+            @RequestParam(required = false) String filter,
+            @RequestParam String after,
+            @RequestParam(defaultValue = "10") int size) {
 
-        return ResponseEntity.ok(responsesPage);
+        KeysetPage<Campaign> campaigns = service.findAll(filter, after, size);
+        Map<Long, Long> memberCounts = countSegmentMembers(campaigns.content());
+        return ResponseEntity.ok(campaigns.map(campaign ->
+                CampaignRepresentation.CampaignResponse.from(mapper, campaign, memberCounts)));
     }
 
     @GetMapping("{id}")
@@ -57,7 +95,32 @@ public class CampaignController extends AbstractController {
         Campaign campaign = service.findById(id)
                 .orElseThrow(() -> new BussinessException("Campaign with id = " + id + " not found"));
 
-        CampaignRepresentation.CampaignResponse response = CampaignRepresentation.CampaignResponse.from(mapper, campaign);
+        CampaignRepresentation.CampaignResponse response = CampaignRepresentation.CampaignResponse.from(mapper, campaign,
+                countSegmentMembers(Set.of(campaign)));
         return ResponseEntity.ok(response);
     }
+
+    @GetMapping("{id}/progress")
+    public ResponseEntity<CampaignRepresentation.CampaignProgressResponse> progress(@PathVariable("id") Long id) {
+        CampaignProgressTracker.Progress progress = progressTracker.find(id)
+                .orElseThrow(() -> new BussinessException("No delivery progress for campaign with id = " + id));
+
+        return ResponseEntity.ok(CampaignRepresentation.CampaignProgressResponse.from(progress));
+    }
+
+    @GetMapping(value = "{id}/progress/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter progressStream(@PathVariable("id") Long id) {
+        if (progressTracker.find(id).isEmpty() && service.findById(id).isEmpty()) {
+            throw new BussinessException("Campaign with id = " + id + " not found");
+        }
+
+        return progressPublisher.subscribe(id);
+    }
+
+    private Map<Long, Long> countSegmentMembers(Collection<Campaign> campaigns) {
+        return segmentService.countMembers(campaigns.stream()
+                .flatMap(campaign -> campaign.getSegments().stream())
+                .map(Segment::getId)
+                .collect(Collectors.toSet()));
+    }
 }
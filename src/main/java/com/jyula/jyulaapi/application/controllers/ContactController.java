@@ -1,19 +1,24 @@
 package com.jyula.jyulaapi.application.controllers;
 
 import com.jyula.jyulaapi.core.enterprise.BussinessException;
+import com.jyula.jyulaapi.core.enterprise.ContactImportReader;
+import com.jyula.jyulaapi.core.enterprise.CountMode;
+import com.jyula.jyulaapi.core.enterprise.KeysetPage;
 import com.jyula.jyulaapi.core.entities.Contact;
 import com.jyula.jyulaapi.core.representations.ContactRepresentation;
 import com.jyula.jyulaapi.core.services.ContactService;
 import org.modelmapper.ModelMapper;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.io.InputStream;
 import java.net.URI;
-import java.util.List;
 
 @RestController
 @RequestMapping("/api/v1/contacts")
@@ -35,21 +40,63 @@ public class ContactController extends AbstractController {
         return ResponseEntity.created(URI.create("/api/v1/contacts/" + contact.getId())).body(response);
     }
 
+    /**
+     * Imports a CSV ({@code text/csv}) or NDJSON ({@code application/x-ndjson}) request body,
+     * read as it arrives.
+     */
+    @PostMapping("import")
+    public ResponseEntity<ContactRepresentation.ContactImportResponse> importContacts(
+            @RequestHeader(value = "Content-Type", required = false) String contentType, InputStream body) {
+
+        ContactService.ImportResult result = service.importContacts(body,
+                ContactImportReader.Format.fromContentType(contentType));
+
+        return ResponseEntity.ok(ContactRepresentation.ContactImportResponse.from(result));
+    }
+
     @GetMapping
-    public ResponseEntity<PageImpl<ContactRepresentation.ContactResponse>> findAll(
+    public ResponseEntity<Slice<ContactRepresentation.ContactResponse>> findAll(
             @RequestParam(required = false) String filter,
             @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "exact") String count) {
+
+        Slice<Contact> contacts = service.findAll(filter, PageRequest.of(page, size), CountMode.fromName(count));
+        return ResponseEntity.ok(contacts.map(contact -> ContactRepresentation.ContactResponse.from(mapper, contact)));
+    }
+
+    /**
+     * Keyset variant of {@link #findAll(String, int, int, String)}, selected by the {@code after}
+     * parameter: pass an empty value for the first page and the returned {@code next} cursor
+     * afterwards.
+     */
+    @GetMapping(params = "after")
+    public ResponseEntity<KeysetPage<ContactRepresentation.ContactResponse>> findAllAfter(
+            @RequestParam(required = false) String filter,
+            @RequestParam String after,
             @RequestParam(defaultValue = "10") int size) {
 
-        Page<Contact> contacts = service.findAll(filter, PageRequest.of(page, size));
+        KeysetPage<Contact> contacts = service.findAll(filter, after, size);
+        return ResponseEntity.ok(contacts.map(contact -> ContactRepresentation.ContactResponse.from(mapper, contact)));
+    }
 
-        List<ContactRepresentation.ContactResponse> responses = contacts.stream()
-                .map((contact -> ContactRepresentation.ContactResponse.from(mapper, contact))).toList();
+    /**
+     * Streams every contact matching {@code filter} as CSV or NDJSON while it is read from the
+     * database.
+     */
+    @GetMapping("export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(required = false) String filter,
+            @RequestParam(defaultValue = "csv") String format) {
 
-        PageImpl<ContactRepresentation.ContactResponse> responsesPage = new PageImpl<>(
-                responses, contacts.getPageable(), contacts.getTotalElements());
+        ContactImportReader.Format exportFormat = ContactImportReader.Format.fromName(format);
+        boolean csv = exportFormat == ContactImportReader.Format.CSV;
 
-        return ResponseEntity.ok(responsesPage);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(csv ? "text/csv;charset=UTF-8" : "application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"contacts." + (csv ? "csv" : "ndjson") + "\"")
+                .body(output -> service.exportContacts(filter, exportFormat, output));
     }
 
     @GetMapping("{id}")
@@ -2,22 +2,24 @@ package com.jyula.jyulaapi.application.controllers;
 
 import com.jyula.jyulaapi.application.security.jwt.JwtUtils;
 import com.jyula.jyulaapi.core.enterprise.BussinessException;
+import com.jyula.jyulaapi.core.enterprise.CountMode;
+import com.jyula.jyulaapi.core.enterprise.KeysetPage;
+import com.jyula.jyulaapi.core.entities.Contact;
 import com.jyula.jyulaapi.core.entities.Segment;
 import com.jyula.jyulaapi.core.representations.ContactRepresentation;
 import com.jyula.jyulaapi.core.representations.SegmentRepresentation;
 import com.jyula.jyulaapi.core.services.SegmentService;
 import org.modelmapper.ModelMapper;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
 import java.net.URI;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/v1/segments")
@@ -44,36 +46,85 @@ public class SegmentController extends AbstractController {
         representation.setUsername(username);
 
         Segment segment = service.save(representation);
+        SegmentRepresentation.SegmentResponse response = toResponse(segment);
 
-        Set<ContactRepresentation.ContactResponse> contacts = segment.getContacts().stream()
-                .map((contact -> ContactRepresentation.ContactResponse.from(mapper, contact)))
-                .collect(Collectors.toSet());
+        return ResponseEntity.created(URI.create("/api/v1/segments/" + segment.getId())).body(response);
+    }
 
-        SegmentRepresentation.SegmentResponse response = SegmentRepresentation.SegmentResponse.builder()
-                .segmentId(segment.getId())
-                .contacts(contacts)
-                .name(segment.getName())
-                .build();
+    /**
+     * Creates a segment from an expression over existing segments, e.g. one segment minus another,
+     * computed inside the database.
+     */
+    @PostMapping("compose")
+    public ResponseEntity<SegmentRepresentation.SegmentResponse> compose(
+            @RequestHeader("Authorization") String authHeader,
+            @RequestBody @Valid SegmentRepresentation.ComposeSegment representation) {
+
+        String token = authHeader.substring(7);
+        representation.setUsername(jwtUtils.getUserNameFromJwtToken(token));
+
+        Segment segment = service.compose(representation);
+        SegmentRepresentation.SegmentResponse response = toResponse(segment);
 
         return ResponseEntity.created(URI.create("/api/v1/segments/" + segment.getId())).body(response);
     }
 
     @GetMapping
-    public ResponseEntity<PageImpl<SegmentRepresentation.SegmentResponse>> findAll(
+    public ResponseEntity<Slice<SegmentRepresentation.SegmentResponse>> findAll(
             @RequestParam(required = false) String filter,
             @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "exact") String count) {
+
+        Slice<Segment> segments = service.findAll(filter, PageRequest.of(page, size), CountMode.fromName(count));
+        Map<Long, Long> contactCounts = countMembers(segments.getContent());
+        return ResponseEntity.ok(segments.map(segment ->
+                SegmentRepresentation.SegmentResponse.from(segment, contactCounts)));
+    }
+
+    /**
+     * Keyset variant of {@link #findAll(String, int, int, String)}, selected by the {@code after}
+     * parameter: pass an empty value for the first page and the returned {@code next} cursor
+     * afterwards.
+     */
+    @GetMapping(params = "after")
+    public ResponseEntity<KeysetPage<SegmentRepresentation.SegmentResponse>> findAllAfter(
+            @RequestParam(required = false) String filter,
+            @RequestParam String after,
             @RequestParam(defaultValue = "10") int size) {
 
-        Page<Segment> segments = service.findAll(filter, PageRequest.of(page, size));
+        KeysetPage<Segment> segments = service.findAll(filter, after, size);
+        Map<Long, Long> contactCounts = countMembers(segments.content());
+        return ResponseEntity.ok(segments.map(segment ->
+                SegmentRepresentation.SegmentResponse.from(segment, contactCounts)));
+    }
 
-        List<SegmentRepresentation.SegmentResponse> responses = segments.stream()
-                .map((segment -> SegmentRepresentation.SegmentResponse.from(mapper, segment)))
-                .toList();
+    /**
+     * Members of the segment, paged by keyset like {@link #findAllAfter(String, String, int)}:
+     * pass an empty {@code after} for the first page and the returned {@code next} cursor
+     * afterwards.
+     */
+    @GetMapping("{id}/contacts")
+    public ResponseEntity<KeysetPage<ContactRepresentation.ContactResponse>> findContacts(
+            @PathVariable("id") Long id,
+            @RequestParam(defaultValue = "") String after,
+            @RequestParam(defaultValue = "10") int size) {
 
-        PageImpl<SegmentRepresentation.SegmentResponse> responsesPage = new PageImpl<>(
-                responses, segments.getPageable(), segments.getTotalElements());
+        KeysetPage<Contact> contacts = service.findMembers(id, after, size);
+        return ResponseEntity.ok(contacts.map(contact -> ContactRepresentation.ContactResponse.from(mapper, contact)));
+    }
 
-        return ResponseEntity.ok(responsesPage);
+    /**
+     * Counts the distinct contacts a campaign sent to {@code ids} would reach.
+     */
+    @GetMapping("audience")
+    public ResponseEntity<SegmentRepresentation.AudienceResponse> audience(@RequestParam Set<Long> ids) {
+        SegmentRepresentation.AudienceResponse response = SegmentRepresentation.AudienceResponse.builder()
+                .segments(ids)
+                .contacts(service.countAudience(ids))
+                .build();
+
+        return ResponseEntity.ok(response);
     }
 
     @GetMapping("{id}")
@@ -81,15 +132,7 @@ public class SegmentController extends AbstractController {
         Segment segment = service.findById(id)
                 .orElseThrow(() -> new BussinessException("Segments with id = " + id + " not found"));
 
-        Set<ContactRepresentation.ContactResponse> contacts = segment.getContacts().stream()
-                .map((contact -> ContactRepresentation.ContactResponse.from(mapper, contact)))
-                .collect(Collectors.toSet());
-
-        SegmentRepresentation.SegmentResponse response = SegmentRepresentation.SegmentResponse.builder()
-                .segmentId(segment.getId())
-                .contacts(contacts)
-                .name(segment.getName())
-                .build();
+        SegmentRepresentation.SegmentResponse response = toResponse(segment);
 
         return ResponseEntity.ok(response);
     }
@@ -105,7 +148,7 @@ public class SegmentController extends AbstractController {
                                                                         @RequestBody SegmentRepresentation.CreateOrUpdateSegment representation) {
 
         Segment updatedSegment = service.update(id, representation);
-        SegmentRepresentation.SegmentResponse response = SegmentRepresentation.SegmentResponse.from(mapper, updatedSegment);
+        SegmentRepresentation.SegmentResponse response = toResponse(updatedSegment);
         return ResponseEntity.ok(response);
     }
 
@@ -115,7 +158,25 @@ public class SegmentController extends AbstractController {
             @RequestBody @Valid SegmentRepresentation.AddContactsToSegment representation) {
 
         Segment segment = service.addContacts(id, representation.getContacts());
-        SegmentRepresentation.SegmentResponse response = SegmentRepresentation.SegmentResponse.from(mapper, segment);
+        SegmentRepresentation.SegmentResponse response = toResponse(segment);
+        return ResponseEntity.ok(response);
+    }
+
+    @DeleteMapping("{id}/contacts")
+    public ResponseEntity<SegmentRepresentation.SegmentResponse> removeContacts(
+            @PathVariable("id") Long id,
+            @RequestBody @Valid SegmentRepresentation.RemoveContactsFromSegment representation) {
+
+        Segment segment = service.removeContacts(id, representation.getContacts());
+        SegmentRepresentation.SegmentResponse response = toResponse(segment);
         return ResponseEntity.ok(response);
     }
+
+    private SegmentRepresentation.SegmentResponse toResponse(Segment segment) {
+        return SegmentRepresentation.SegmentResponse.from(segment, countMembers(List.of(segment)));
+    }
+
+    private Map<Long, Long> countMembers(List<Segment> segments) {
+        return service.countMembers(segments.stream().map(Segment::getId).toList());
+    }
 }
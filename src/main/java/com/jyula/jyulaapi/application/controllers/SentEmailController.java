@@ -1,47 +1,61 @@
 package com.jyula.jyulaapi.application.controllers;
 
 import com.jyula.jyulaapi.core.enterprise.BussinessException;
+import com.jyula.jyulaapi.core.enterprise.CountMode;
+import com.jyula.jyulaapi.core.enterprise.KeysetPage;
 import com.jyula.jyulaapi.core.entities.Campaign;
 import com.jyula.jyulaapi.core.entities.SentEmail;
 import com.jyula.jyulaapi.core.repositories.SentEmailRepository;
 import com.jyula.jyulaapi.core.representations.CampaignRepresentation;
 import com.jyula.jyulaapi.core.representations.SentEmailRepresentation;
+import com.jyula.jyulaapi.core.services.CountEstimator;
 import org.modelmapper.ModelMapper;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
-import java.util.List;
 
 @RestController
 @RequestMapping("/api/v1/sent-emails")
 public class SentEmailController extends AbstractController {
     private final ModelMapper mapper;
     private final SentEmailRepository sentEmailRepository;
+    private final CountEstimator countEstimator;
 
-    public SentEmailController(ModelMapper mapper, SentEmailRepository sentEmailRepository) {
+    public SentEmailController(ModelMapper mapper, SentEmailRepository sentEmailRepository,
+                               CountEstimator countEstimator) {
         this.mapper = mapper;
         this.sentEmailRepository = sentEmailRepository;
+        this.countEstimator = countEstimator;
     }
 
     @GetMapping
-    public ResponseEntity<PageImpl<SentEmailRepresentation.SentEmailResponse>> findAll(
+    public ResponseEntity<Slice<SentEmailRepresentation.SentEmailResponse>> findAll(
             @RequestParam(required = false) String filter,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
-
-        Page<SentEmail> sentEmails = sentEmailRepository.findAll(filter, SentEmail.class, PageRequest.of(page, size));
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "exact") String count) {
 
-        List<SentEmailRepresentation.SentEmailResponse> responses = sentEmails.stream()
-                .map((sentEmail -> SentEmailRepresentation.SentEmailResponse.from(mapper, sentEmail))).toList();
+        Slice<SentEmail> sentEmails = countEstimator.findAll(sentEmailRepository, SentEmail.class, filter,
+                PageRequest.of(page, size), CountMode.fromName(count));
+        return ResponseEntity.ok(sentEmails.map(sentEmail -> SentEmailRepresentation.SentEmailResponse.from(mapper, sentEmail)));
+    }
 
-        PageImpl<SentEmailRepresentation.SentEmailResponse> responsesPage = new PageImpl<>(
-                responses, sentEmails.getPageable(), sentEmails.getTotalElements());
+    /**
+     * Keyset variant of {@link #findAll(String, int, int, String)}, selected by the {@code after}
+     * parameter: pass an empty value for the first page and the returned {@code next} cursor
+     * afterwards.
+     */
+    @GetMapping(params = "after")
+    public ResponseEntity<KeysetPage<SentEmailRepresentation.SentEmailResponse>> findAllAfter(
+            @RequestParam(required = false) String filter,
+            @RequestParam String after,
+            @RequestParam(defaultValue = "10") int size) {
 
-        return ResponseEntity.ok(responsesPage);
+        KeysetPage<SentEmail> sentEmails = sentEmailRepository.findAfter(filter, SentEmail.class, after, size);
+        return ResponseEntity.ok(sentEmails.map(sentEmail -> SentEmailRepresentation.SentEmailResponse.from(mapper, sentEmail)));
     }
 
     @GetMapping("{id}")
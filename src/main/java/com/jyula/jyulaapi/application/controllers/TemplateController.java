@@ -2,20 +2,23 @@ package com.jyula.jyulaapi.application.controllers;
 
 import com.jyula.jyulaapi.application.security.jwt.JwtUtils;
 import com.jyula.jyulaapi.core.enterprise.BussinessException;
+import com.jyula.jyulaapi.core.enterprise.CountMode;
+import com.jyula.jyulaapi.core.enterprise.KeysetPage;
 import com.jyula.jyulaapi.core.entities.Template;
 import com.jyula.jyulaapi.core.entities.TemplateContent;
+import com.jyula.jyulaapi.core.repositories.TemplateContentRepository;
 import com.jyula.jyulaapi.core.representations.TemplateRepresentation;
+import com.jyula.jyulaapi.core.services.TemplateContentCache;
 import com.jyula.jyulaapi.core.services.TemplateService;
 import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
 import java.net.URI;
-import java.util.List;
 
 @RestController
 @RequestMapping("/api/v1/templates")
@@ -46,20 +49,29 @@ public class TemplateController extends AbstractController {
     }
 
     @GetMapping
-    public ResponseEntity<PageImpl<TemplateRepresentation.TemplateResponse>> findAll(
+    public ResponseEntity<Slice<TemplateRepresentation.TemplateResponse>> findAll(
             @RequestParam(required = false) String filter,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
-
-        Page<Template> templates = service.findAll(filter, PageRequest.of(page, size));
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "exact") String count) {
 
-        List<TemplateRepresentation.TemplateResponse> responses = templates.stream()
-                .map((template) -> TemplateRepresentation.TemplateResponse.from(mapper, template)).toList();
+        Slice<Template> templates = service.findAll(filter, PageRequest.of(page, size), CountMode.fromName(count));
+        return ResponseEntity.ok(templates.map(template -> TemplateRepresentation.TemplateResponse.from(mapper, template)));
+    }
 
-        PageImpl<TemplateRepresentation.TemplateResponse> responsesPage = new PageImpl<>(
-                responses, templates.getPageable(), templates.getTotalElements());
+    /**
+     * Keyset variant of {@link #findAll(String, int, int, String)}, selected by the {@code after}
+     * parameter: pass an empty value for the first page and the returned {@code next} cursor
+     * afterwards.
+     */
+    @GetMapping(params = "after")
+    public ResponseEntity<KeysetPage<TemplateRepresentation.TemplateResponse>> findAllAfter(
+            @RequestParam(required = false) String filter,
+            @RequestParam String after,
+            @RequestParam(defaultValue = "10") int size) {
 
-        return ResponseEntity.ok(responsesPage);
+        KeysetPage<Template> templates = service.findAll(filter, after, size);
+        return ResponseEntity.ok(templates.map(template -> TemplateRepresentation.TemplateResponse.from(mapper, template)));
     }
 
     @GetMapping("{id}")
@@ -105,6 +117,21 @@ public class TemplateController extends AbstractController {
         return ResponseEntity.ok(numberOfVersions);
     }
 
+    @GetMapping("{id}/versions")
+    public ResponseEntity<Page<TemplateRepresentation.TemplateVersionResponse>> findVersionsById(
+            @PathVariable("id") Long id,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+
+        Page<TemplateContentRepository.VersionSummary> versions = service.getVersions(id, PageRequest.of(page, size));
+        return ResponseEntity.ok(versions.map(TemplateRepresentation.TemplateVersionResponse::from));
+    }
+
+    @GetMapping("cache/stats")
+    public ResponseEntity<TemplateContentCache.Stats> cacheStats() {
+        return ResponseEntity.ok(service.getCacheStats());
+    }
+
     @DeleteMapping("{id}")
     public ResponseEntity<Object> remove(@PathVariable("id") Long id) {
         service.remove(id);
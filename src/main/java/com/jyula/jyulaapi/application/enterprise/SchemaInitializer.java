@@ -0,0 +1,102 @@
+package com.jyula.jyulaapi.application.enterprise;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Applies what {@code ddl-auto} cannot express, such as expression indexes and data backfills,
+ * once Hibernate has brought the tables up to date. Every statement is idempotent, so this runs on
+ * each start. Migrations that rewrite data, such as {@link #migrateContactEmails}, check whether
+ * they are still needed first and do nothing once they have been applied.
+ */
+@Component
+public class SchemaInitializer {
+    private static final Logger logger = LoggerFactory.getLogger(SchemaInitializer.class);
+
+    static final List<String> STATEMENTS = List.of(
+            // Rows created through builders before BaseEntity#onPrePersist existed have no created_at,
+            // which keyset pagination cannot seek past. The (created_at, id) indexes find them.
+            "update contacts set created_at = coalesce(updated_at, now()) where created_at is null",
+            "update segments set created_at = coalesce(updated_at, now()) where created_at is null",
+            "update templates set created_at = coalesce(updated_at, now()) where created_at is null",
+            "update campaigns set created_at = coalesce(updated_at, now()) where created_at is null",
+            "update sent_emails set created_at = coalesce(updated_at, now()) where created_at is null",
+            // FAILED rows written before retries existed have neither attempts nor next_attempt_at,
+            // so the retry sweep would never see them. They are made due for a second attempt.
+            "update sent_emails set attempts = 1, next_attempt_at = now() "
+                    + "where status = 'FAILED' and attempts is null",
+            // Segment bitmaps not in ContactIdBitmap's current format (first byte 2) are dropped;
+            // SegmentBitmapStore rebuilds missing ones from segments_contacts on first use.
+            "delete from segment_bitmaps where get_byte(data, 0) <> 2");
+
+    private static final String EMAIL_INDEX_EXISTS_SQL =
+            "select exists (select 1 from pg_indexes where indexname = 'uk_contacts_email_lower')";
+
+    private static final String DUPLICATE_EMAILS_SQL = "select lower(trim(email)) || ': ' "
+            + "|| string_agg(cast(id as text), ', ' order by id) from contacts "
+            + "group by lower(trim(email)) having count(*) > 1 order by 1";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SchemaInitializer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexes() {
+        try {
+            migrateContactEmails();
+        } catch (DataAccessException ex) {
+            logger.warn("Could not migrate contact emails", ex);
+        }
+
+        for (String statement : STATEMENTS) {
+            try {
+                jdbcTemplate.execute(statement);
+            } catch (DataAccessException ex) {
+                logger.warn("Could not apply schema statement: {}", statement, ex);
+            }
+        }
+    }
+
+    /**
+     * Emails are unique case-insensitively, see {@code Contact#normalizeEmail}. Rows written before
+     * that are normalized once and {@code uk_contacts_email_lower} is created, which also marks the
+     * migration as done. If some emails only differ in case or surrounding spaces nothing is
+     * rewritten: the colliding contact ids are reported and the plain {@code lower(email)} index
+     * keeps serving {@code ContactRepository#findByEmailIn} until they are merged.
+     */
+    void migrateContactEmails() {
+        if (Boolean.TRUE.equals(jdbcTemplate.queryForObject(EMAIL_INDEX_EXISTS_SQL, Boolean.class))) {
+            jdbcTemplate.execute("drop index if exists idx_contacts_email_lower");
+            return;
+        }
+
+        List<String> duplicates = jdbcTemplate.queryForList(DUPLICATE_EMAILS_SQL, String.class);
+
+        if (!duplicates.isEmpty()) {
+            logger.error("Contact emails are not unique case-insensitively, so they were not normalized and "
+                    + "uk_contacts_email_lower was not created. Merge or delete these contacts and restart "
+                    + "(normalized email: contact ids):\n{}", String.join("\n", duplicates));
+            jdbcTemplate.execute("create index if not exists idx_contacts_email_lower on contacts (lower(email))");
+            return;
+        }
+
+        int normalized = jdbcTemplate.update(
+                "update contacts set email = lower(trim(email)) where email <> lower(trim(email))");
+
+        if (normalized > 0) {
+            logger.warn("Lower-cased and trimmed the email of {} contacts", normalized);
+        }
+
+        jdbcTemplate.execute("create unique index if not exists uk_contacts_email_lower on contacts (lower(email))");
+        jdbcTemplate.execute("drop index if exists idx_contacts_email_lower");
+    }
+}
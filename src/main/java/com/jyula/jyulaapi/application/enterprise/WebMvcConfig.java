@@ -1,21 +1,33 @@
 package com.jyula.jyulaapi.application.enterprise;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 public class WebMvcConfig implements WebMvcConfigurer {
     private final RateLimitInterceptor rateLimitInterceptor;
+    private final long asyncTimeoutMs;
 
     @Autowired
-    public WebMvcConfig(RateLimitInterceptor rateLimitInterceptor) {
+    public WebMvcConfig(RateLimitInterceptor rateLimitInterceptor,
+                        @Value("${app.export.timeoutMs}") long asyncTimeoutMs) {
         this.rateLimitInterceptor = rateLimitInterceptor;
+        this.asyncTimeoutMs = asyncTimeoutMs;
     }
 
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
         registry.addInterceptor(rateLimitInterceptor);
     }
+
+    // Streamed responses such as the contact export run asynchronously; the container default of a
+    // few seconds would cut large exports short.
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(asyncTimeoutMs);
+    }
 }
@@ -0,0 +1,147 @@
+package com.jyula.jyulaapi.application.workers;
+
+import com.jyula.jyulaapi.core.entities.CampaignDispatchJob;
+import com.jyula.jyulaapi.core.repositories.CampaignDispatchJobRepository;
+import com.jyula.jyulaapi.core.services.CampaignDeliveryService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Claims dispatch jobs and runs them on {@code campaignDispatchExecutor}. Jobs this node is
+ * running get their {@code heartbeat_at} refreshed from the delivery itself, after every chunk
+ * and at most every third of the lease, so a late poll cannot let a live job look abandoned; a
+ * RUNNING job whose heartbeat is older than {@code app.dispatch.jobLeaseSeconds} belonged to a
+ * node that died and is claimed again, and delivery resumes from the campaign's cursor.
+ */
+@Component
+public class CampaignDispatchWorker {
+    private static final Logger logger = LoggerFactory.getLogger(CampaignDispatchWorker.class);
+
+    private final CampaignDispatchJobRepository jobRepository;
+    private final CampaignDeliveryService deliveryService;
+    private final ThreadPoolTaskExecutor executor;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration jobLease;
+
+    public CampaignDispatchWorker(CampaignDispatchJobRepository jobRepository,
+                                  CampaignDeliveryService deliveryService,
+                                  @Qualifier("campaignDispatchExecutor") ThreadPoolTaskExecutor executor,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${app.dispatch.jobLeaseSeconds}") long jobLeaseSeconds) {
+        this.jobRepository = jobRepository;
+        this.deliveryService = deliveryService;
+        this.executor = executor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.jobLease = Duration.ofSeconds(jobLeaseSeconds);
+    }
+
+    @Scheduled(fixedDelayString = "${app.dispatch.pollIntervalMs}")
+    public void poll() {
+        int busy = executor.getActiveCount() + executor.getThreadPoolExecutor().getQueue().size();
+        int idle = executor.getMaxPoolSize() - busy;
+
+        if (idle <= 0) {
+            return;
+        }
+
+        List<CampaignDispatchJob> claimed = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<CampaignDispatchJob> jobs = jobRepository.lockClaimable(idle, now.minus(jobLease));
+
+            jobs.forEach(job -> {
+                if (job.getStatus() == CampaignDispatchJob.JobStatus.RUNNING) {
+                    logger.warn("Resuming dispatch job {} abandoned since {}", job.getId(), job.getHeartbeatAt());
+                }
+
+                job.setStatus(CampaignDispatchJob.JobStatus.RUNNING);
+                job.setStartedAt(now);
+                job.setHeartbeatAt(now);
+                job.setAttempts(job.getAttempts() + 1);
+            });
+
+            return jobs;
+        });
+
+        if (claimed == null) {
+            return;
+        }
+
+        for (CampaignDispatchJob job : claimed) {
+            try {
+                executor.execute(() -> run(job.getId(), job.getCampaign().getId()));
+            } catch (RejectedExecutionException ex) {
+                logger.warn("Dispatch executor rejected job {}, releasing it: {}", job.getId(), ex.getMessage());
+                release(job.getId());
+            }
+        }
+    }
+
+    /**
+     * Puts a job claimed by this node back to PENDING without counting the attempt, so the next
+     * poll on any node can pick it up instead of waiting for its lease to expire.
+     */
+    private void release(Long jobId) {
+        transactionTemplate.executeWithoutResult(tx -> jobRepository.findById(jobId).ifPresent(job -> {
+            job.setStatus(CampaignDispatchJob.JobStatus.PENDING);
+            job.setStartedAt(null);
+            job.setHeartbeatAt(null);
+            job.setAttempts(job.getAttempts() - 1);
+        }));
+    }
+
+    private void run(Long jobId, Long campaignId) {
+        Lease lease = new Lease(jobId);
+
+        try {
+            deliveryService.deliver(campaignId, lease::renew);
+            finish(jobId, CampaignDispatchJob.JobStatus.COMPLETED, null);
+        } catch (RuntimeException ex) {
+            logger.error("Dispatch job {} for campaign {} failed: {}", jobId, campaignId, ex.getMessage());
+            finish(jobId, CampaignDispatchJob.JobStatus.FAILED, ex.getMessage());
+        }
+    }
+
+    private void finish(Long jobId, CampaignDispatchJob.JobStatus status, String error) {
+        transactionTemplate.executeWithoutResult(tx -> jobRepository.findById(jobId).ifPresent(job -> {
+            job.setStatus(status);
+            job.setFinishedAt(LocalDateTime.now());
+            job.setUpdatedAt(LocalDateTime.now());
+            job.setLastError(error);
+        }));
+    }
+
+    /**
+     * Heartbeat of one running job, written from the thread delivering it.
+     */
+    private final class Lease {
+        private final Long jobId;
+        private LocalDateTime renewedAt = LocalDateTime.now();
+
+        private Lease(Long jobId) {
+            this.jobId = jobId;
+        }
+
+        private void renew() {
+            LocalDateTime now = LocalDateTime.now();
+
+            if (renewedAt.plus(jobLease.dividedBy(3)).isAfter(now)) {
+                return;
+            }
+
+            transactionTemplate.executeWithoutResult(tx -> jobRepository.heartbeat(List.of(jobId), now));
+            renewedAt = now;
+        }
+    }
+}
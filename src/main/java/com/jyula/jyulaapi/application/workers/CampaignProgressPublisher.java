@@ -0,0 +1,70 @@
+package com.jyula.jyulaapi.application.workers;
+
+import com.jyula.jyulaapi.core.representations.CampaignRepresentation;
+import com.jyula.jyulaapi.core.services.CampaignProgressTracker;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Pushes progress snapshots to every open SSE stream from one scheduled loop, instead of holding
+ * a thread per subscriber. A stream is completed once its delivery has finished.
+ */
+@Component
+public class CampaignProgressPublisher {
+    private final CampaignProgressTracker progressTracker;
+    private final long streamTimeoutMs;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    public CampaignProgressPublisher(CampaignProgressTracker progressTracker,
+                                     @Value("${app.progress.retentionSeconds}") long retentionSeconds) {
+        this.progressTracker = progressTracker;
+        this.streamTimeoutMs = Duration.ofSeconds(retentionSeconds).toMillis();
+    }
+
+    public SseEmitter subscribe(Long campaignId) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        Subscription subscription = new Subscription(campaignId, emitter);
+
+        emitter.onCompletion(() -> subscriptions.remove(subscription));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> subscriptions.remove(subscription));
+        subscriptions.add(subscription);
+
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "${app.progress.streamIntervalMs}")
+    public void publish() {
+        for (Subscription subscription : subscriptions) {
+            Optional<CampaignProgressTracker.Progress> progress = progressTracker.find(subscription.campaignId());
+
+            if (progress.isEmpty()) {
+                continue;
+            }
+
+            try {
+                subscription.emitter().send(SseEmitter.event().name("progress").data(
+                        CampaignRepresentation.CampaignProgressResponse.from(progress.get())));
+
+                if (progress.get().finished()) {
+                    subscriptions.remove(subscription);
+                    subscription.emitter().complete();
+                }
+            } catch (IOException | IllegalStateException ex) {
+                subscriptions.remove(subscription);
+                subscription.emitter().completeWithError(ex);
+            }
+        }
+    }
+
+    private record Subscription(Long campaignId, SseEmitter emitter) {
+    }
+}
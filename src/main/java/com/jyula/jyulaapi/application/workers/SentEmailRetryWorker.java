@@ -0,0 +1,84 @@
+package com.jyula.jyulaapi.application.workers;
+
+import com.jyula.jyulaapi.core.providers.MailSenderProvider;
+import com.jyula.jyulaapi.core.repositories.SentEmailBulkWriter;
+import com.jyula.jyulaapi.core.services.CampaignDeliveryService;
+import com.jyula.jyulaapi.core.services.SentEmailLeaseKeeper;
+import com.jyula.jyulaapi.core.services.TemplateRenderer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Re-sends FAILED rows whose backoff has elapsed and PROCESSING rows whose lease ran out because
+ * the node sending them died. Rows are claimed with {@code skip locked}, so any number of nodes
+ * can sweep at the same time. PROCESSING rows that ran out of their lease on the last allowed
+ * attempt are marked FAILED instead.
+ */
+@Component
+public class SentEmailRetryWorker {
+    private static final Logger logger = LoggerFactory.getLogger(SentEmailRetryWorker.class);
+
+    private final SentEmailBulkWriter sentEmailWriter;
+    private final MailSenderProvider mailSenderProvider;
+    private final SentEmailLeaseKeeper leaseKeeper;
+    private final TemplateRenderer templateRenderer;
+    private final int batchSize;
+
+    public SentEmailRetryWorker(SentEmailBulkWriter sentEmailWriter,
+                                MailSenderProvider mailSenderProvider,
+                                SentEmailLeaseKeeper leaseKeeper,
+                                TemplateRenderer templateRenderer,
+                                @Value("${app.retry.batchSize}") int batchSize) {
+        this.sentEmailWriter = sentEmailWriter;
+        this.mailSenderProvider = mailSenderProvider;
+        this.leaseKeeper = leaseKeeper;
+        this.templateRenderer = templateRenderer;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${app.retry.sweepIntervalMs}")
+    public void sweep() {
+        int exhausted = sentEmailWriter.failExhausted();
+
+        if (exhausted > 0) {
+            logger.warn("Marked {} emails abandoned on their last attempt as failed", exhausted);
+        }
+
+        List<SentEmailBulkWriter.ClaimedEmail> claimed;
+
+        do {
+            claimed = sentEmailWriter.claimDue(batchSize);
+
+            if (claimed.isEmpty()) {
+                return;
+            }
+
+            List<MailSenderProvider.SendMailRequest> requests = claimed.stream()
+                    .map(email -> MailSenderProvider.SendMailRequest.builder()
+                            .from(CampaignDeliveryService.FROM)
+                            .to(email.email())
+                            .personalization(templateRenderer
+                                    .compiled(email.templateId(), email.templateVersion(),
+                                            () -> TemplateRenderer.Source.of(email))
+                                    .personalize(email.name(), email.email()))
+                            .build())
+                    .toList();
+
+            List<Long> ids = claimed.stream().map(SentEmailBulkWriter.ClaimedEmail::sentEmailId).toList();
+            leaseKeeper.hold(ids);
+
+            try {
+                sentEmailWriter.applyResults(ids, mailSenderProvider.sendBatch(requests));
+            } finally {
+                leaseKeeper.release(ids);
+            }
+
+            logger.info("Retried {} emails", claimed.size());
+        } while (claimed.size() == batchSize);
+    }
+}
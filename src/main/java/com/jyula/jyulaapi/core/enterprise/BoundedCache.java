@@ -0,0 +1,76 @@
+package com.jyula.jyulaapi.core.enterprise;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Small thread-safe LRU cache. {@code null} values are never stored, so a missing row is looked up
+ * again on the next call. The loader runs outside the lock; two threads missing the same key at
+ * once may both load it, which is harmless for idempotent lookups.
+ */
+public class BoundedCache<K, V> {
+    private final Map<K, V> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public BoundedCache(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be positive, got " + maxSize);
+        }
+
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public V get(K key, Function<K, V> loader) {
+        V value;
+
+        synchronized (entries) {
+            value = entries.get(key);
+        }
+
+        if (value != null) {
+            hits.increment();
+            return value;
+        }
+
+        misses.increment();
+        value = loader.apply(key);
+
+        if (value != null) {
+            synchronized (entries) {
+                entries.put(key, value);
+            }
+        }
+
+        return value;
+    }
+
+    public void invalidate(K key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    public void invalidateIf(Predicate<K> predicate) {
+        synchronized (entries) {
+            entries.keySet().removeIf(predicate);
+        }
+    }
+
+    public Stats stats() {
+        synchronized (entries) {
+            return new Stats(hits.sum(), misses.sum(), entries.size());
+        }
+    }
+
+    public record Stats(long hits, long misses, int size) {
+    }
+}
@@ -0,0 +1,54 @@
+package com.jyula.jyulaapi.core.enterprise;
+
+import com.jyula.jyulaapi.core.entities.BaseEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public class BulkLookup {
+    public static final int CHUNK_SIZE = 1000;
+
+    /**
+     * Loads every entity in {@code ids} with one {@code IN} query per {@link #CHUNK_SIZE} ids and
+     * fails with a single {@link BussinessException} naming all ids that do not exist.
+     */
+    public static <T extends BaseEntity> List<T> findAllByIds(JpaRepository<T, Long> repository,
+                                                              Collection<Long> ids, String entityName) {
+        List<Long> distinctIds = ids.stream().distinct().toList();
+        List<T> found = findInChunks(distinctIds, repository::findAllById);
+
+        if (found.size() < distinctIds.size()) {
+            Set<Long> foundIds = found.stream().map(BaseEntity::getId).collect(Collectors.toSet());
+            List<Long> missing = distinctIds.stream().filter(id -> !foundIds.contains(id)).sorted().toList();
+            throw notFound(entityName, "id", missing);
+        }
+
+        return found;
+    }
+
+    /**
+     * Runs {@code loader} once per {@link #CHUNK_SIZE} keys and returns everything it found.
+     */
+    public static <K, T> List<T> findInChunks(List<K> keys, Function<List<K>, List<T>> loader) {
+        List<T> found = new ArrayList<>(keys.size());
+
+        for (int from = 0; from < keys.size(); from += CHUNK_SIZE) {
+            found.addAll(loader.apply(keys.subList(from, Math.min(from + CHUNK_SIZE, keys.size()))));
+        }
+
+        return found;
+    }
+
+    public static BussinessException notFound(String entityName, String field, List<?> missing) {
+        if (missing.size() == 1) {
+            return new BussinessException(entityName + " with " + field + " = " + missing.get(0) + " not found");
+        }
+
+        return new BussinessException(entityName + "s with " + field + "s = " + missing + " not found");
+    }
+}
@@ -0,0 +1,145 @@
+package com.jyula.jyulaapi.core.enterprise;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A template text split once into literal chunks and {@code {{placeholder}}} names. Rendering only
+ * appends chunks and resolved values to a caller-owned buffer, so personalizing a message never
+ * scans the source text again. Templates compiled with {@link #html} HTML-escape resolved values,
+ * {@link #text} ones (subjects) insert them as is; placeholders without a value render as an
+ * empty string. Instances are immutable and safe to share between threads.
+ *
+ * <p>The literal chunks are also kept JSON-escaped and UTF-8 encoded, so {@link #writeJson} can
+ * put a personalized message into a JSON payload by copying those bytes and escaping only the
+ * per-recipient values.
+ */
+public final class CompiledTemplate {
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    private final String[] literals;
+    private final String[] placeholders;
+    private final byte[][] jsonLiterals;
+    private final boolean escapeHtml;
+    private final int literalLength;
+
+    private CompiledTemplate(String[] literals, String[] placeholders, boolean escapeHtml) {
+        this.literals = literals;
+        this.placeholders = placeholders;
+        this.escapeHtml = escapeHtml;
+        this.jsonLiterals = new byte[literals.length][];
+
+        int length = 0;
+        for (int i = 0; i < literals.length; i++) {
+            length += literals[i].length();
+            jsonLiterals[i] = JsonStrings.encode(literals[i]);
+        }
+        this.literalLength = length;
+    }
+
+    public static CompiledTemplate html(String source) {
+        return compile(source, true);
+    }
+
+    public static CompiledTemplate text(String source) {
+        return compile(source, false);
+    }
+
+    private static CompiledTemplate compile(String source, boolean escapeHtml) {
+        List<String> literals = new ArrayList<>();
+        List<String> placeholders = new ArrayList<>();
+        String text = source != null ? source : "";
+        int from = 0;
+
+        while (true) {
+            int open = text.indexOf(OPEN, from);
+            int close = open < 0 ? -1 : text.indexOf(CLOSE, open + OPEN.length());
+
+            if (close < 0) {
+                literals.add(text.substring(from));
+                break;
+            }
+
+            literals.add(text.substring(from, open));
+            placeholders.add(text.substring(open + OPEN.length(), close).trim());
+            from = close + CLOSE.length();
+        }
+
+        return new CompiledTemplate(literals.toArray(new String[0]), placeholders.toArray(new String[0]), escapeHtml);
+    }
+
+    public boolean hasPlaceholders() {
+        return placeholders.length > 0;
+    }
+
+    /**
+     * Clears {@code buffer}, writes the template into it with each placeholder resolved through
+     * {@code values} and returns the result.
+     */
+    public String render(Function<String, String> values, StringBuilder buffer) {
+        if (!hasPlaceholders()) {
+            return literals[0];
+        }
+
+        buffer.setLength(0);
+        buffer.ensureCapacity(literalLength);
+        buffer.append(literals[0]);
+
+        for (int i = 0; i < placeholders.length; i++) {
+            String value = values.apply(placeholders[i]);
+
+            if (value != null && escapeHtml) {
+                appendEscaped(buffer, value);
+            } else if (value != null) {
+                buffer.append(value);
+            }
+
+            buffer.append(literals[i + 1]);
+        }
+
+        return buffer.toString();
+    }
+
+    /**
+     * Writes the rendered template to {@code out} as a JSON string, quotes included, without
+     * building the rendered text first.
+     */
+    public void writeJson(Function<String, String> values, ByteArrayOutputStream out) {
+        out.write('"');
+        out.writeBytes(jsonLiterals[0]);
+
+        for (int i = 0; i < placeholders.length; i++) {
+            String value = values.apply(placeholders[i]);
+
+            if (value != null && escapeHtml) {
+                StringBuilder escaped = new StringBuilder(value.length() + 16);
+                appendEscaped(escaped, value);
+                JsonStrings.writeEscaped(out, escaped);
+            } else if (value != null) {
+                JsonStrings.writeEscaped(out, value);
+            }
+
+            out.writeBytes(jsonLiterals[i + 1]);
+        }
+
+        out.write('"');
+    }
+
+    private static void appendEscaped(StringBuilder buffer, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            switch (c) {
+                case '<' -> buffer.append("&lt;");
+                case '>' -> buffer.append("&gt;");
+                case '&' -> buffer.append("&amp;");
+                case '"' -> buffer.append("&quot;");
+                case '\'' -> buffer.append("&#39;");
+                default -> buffer.append(c);
+            }
+        }
+    }
+}
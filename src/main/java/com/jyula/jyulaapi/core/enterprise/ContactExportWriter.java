@@ -0,0 +1,98 @@
+package com.jyula.jyulaapi.core.enterprise;
+
+import com.jyula.jyulaapi.core.entities.Contact;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes contacts to a response stream as CSV, with the same {@code email} and {@code name}
+ * columns {@link ContactImportReader} reads, or as NDJSON. Output goes out in chunks of
+ * {@value #CHUNK_SIZE} bytes, so memory use does not depend on the number of contacts.
+ */
+public final class ContactExportWriter implements Flushable {
+    public static final int CHUNK_SIZE = 64 * 1024;
+
+    private static final byte[] CSV_HEADER = "id,email,name,created_at\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ID_FIELD = "{\"id\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] EMAIL_FIELD = ",\"email\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NAME_FIELD = ",\"name\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CREATED_AT_FIELD = ",\"createdAt\":".getBytes(StandardCharsets.US_ASCII);
+
+    private final OutputStream output;
+    private final ContactImportReader.Format format;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(CHUNK_SIZE + 1024);
+
+    public ContactExportWriter(OutputStream output, ContactImportReader.Format format) {
+        this.output = output;
+        this.format = format;
+
+        if (format == ContactImportReader.Format.CSV) {
+            buffer.writeBytes(CSV_HEADER);
+        }
+    }
+
+    public void write(Contact contact) throws IOException {
+        String createdAt = contact.getCreatedAt() != null ? contact.getCreatedAt().toString() : null;
+
+        if (format == ContactImportReader.Format.CSV) {
+            writeAscii(String.valueOf(contact.getId()));
+            buffer.write(',');
+            writeCsv(contact.getEmail());
+            buffer.write(',');
+            writeCsv(contact.getName());
+            buffer.write(',');
+            writeCsv(createdAt);
+        } else {
+            buffer.writeBytes(ID_FIELD);
+            writeAscii(String.valueOf(contact.getId()));
+            buffer.writeBytes(EMAIL_FIELD);
+            JsonStrings.write(buffer, contact.getEmail());
+            buffer.writeBytes(NAME_FIELD);
+            JsonStrings.write(buffer, contact.getName());
+            buffer.writeBytes(CREATED_AT_FIELD);
+            JsonStrings.write(buffer, createdAt);
+            buffer.write('}');
+        }
+
+        buffer.write('\n');
+
+        if (buffer.size() >= CHUNK_SIZE) {
+            buffer.writeTo(output);
+            buffer.reset();
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        buffer.writeTo(output);
+        buffer.reset();
+        output.flush();
+    }
+
+    private void writeCsv(String value) {
+        if (value == null) {
+            return;
+        }
+
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+
+        if (quote) {
+            buffer.write('"');
+            buffer.writeBytes(value.replace("\"", "\"\"").getBytes(StandardCharsets.UTF_8));
+            buffer.write('"');
+        } else {
+            buffer.writeBytes(value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private void writeAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            buffer.write(value.charAt(i));
+        }
+    }
+}
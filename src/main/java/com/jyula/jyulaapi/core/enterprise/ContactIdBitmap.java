@@ -0,0 +1,188 @@
+package com.jyula.jyulaapi.core.enterprise;
+
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.LongConsumer;
+
+/**
+ * Compressed set of contact ids backed by a {@link Roaring64NavigableMap}. Unions, intersections
+ * and differences work container by container on primitive values, so merging segments of
+ * hundreds of thousands of members takes microseconds to a few milliseconds and never boxes an id.
+ *
+ * <p>{@link #serialize()} writes one version byte followed by the portable Roaring format, after
+ * converting runs of consecutive ids, the common case for contacts created by one import, into
+ * run containers. Instances are not thread-safe; ids must not be negative.
+ */
+public final class ContactIdBitmap {
+    // Version 1 was the earlier hand-written layout; SchemaInitializer drops rows still using it.
+    private static final int FORMAT_VERSION = 2;
+
+    private final Roaring64NavigableMap ids;
+
+    private ContactIdBitmap(Roaring64NavigableMap ids) {
+        this.ids = ids;
+    }
+
+    public static ContactIdBitmap of(long... ids) {
+        ContactIdBitmap bitmap = new ContactIdBitmap(new Roaring64NavigableMap());
+        bitmap.addAll(ids);
+        return bitmap;
+    }
+
+    public static ContactIdBitmap of(Collection<Long> ids) {
+        return of(ids.stream().mapToLong(Long::longValue).toArray());
+    }
+
+    /**
+     * Union of every bitmap in {@code bitmaps}; none of them is modified.
+     */
+    public static ContactIdBitmap union(Collection<ContactIdBitmap> bitmaps) {
+        ContactIdBitmap result = of();
+        bitmaps.forEach(result::or);
+        return result;
+    }
+
+    public ContactIdBitmap copy() {
+        return of().or(this);
+    }
+
+    public boolean add(long id) {
+        if (ids.contains(checked(id))) {
+            return false;
+        }
+
+        ids.addLong(id);
+        return true;
+    }
+
+    /**
+     * Adds {@code ids} in bulk; sorting them first lets each container be filled in one pass.
+     */
+    public void addAll(long... ids) {
+        long[] sorted = ids.clone();
+        Arrays.sort(sorted);
+
+        for (long id : sorted) {
+            this.ids.addLong(checked(id));
+        }
+    }
+
+    public boolean remove(long id) {
+        if (!ids.contains(checked(id))) {
+            return false;
+        }
+
+        ids.removeLong(id);
+        return true;
+    }
+
+    public boolean contains(long id) {
+        return id >= 0 && ids.contains(id);
+    }
+
+    public long cardinality() {
+        return ids.getLongCardinality();
+    }
+
+    public boolean isEmpty() {
+        return ids.isEmpty();
+    }
+
+    /**
+     * Adds every id of {@code other} to this bitmap.
+     */
+    public ContactIdBitmap or(ContactIdBitmap other) {
+        ids.or(other.ids);
+        return this;
+    }
+
+    /**
+     * Keeps only the ids that are also in {@code other}.
+     */
+    public ContactIdBitmap and(ContactIdBitmap other) {
+        ids.and(other.ids);
+        return this;
+    }
+
+    /**
+     * Drops every id that is in {@code other}.
+     */
+    public ContactIdBitmap andNot(ContactIdBitmap other) {
+        ids.andNot(other.ids);
+        return this;
+    }
+
+    /**
+     * Visits every id in ascending order.
+     */
+    public void forEach(LongConsumer action) {
+        ids.forEach(action::accept);
+    }
+
+    public long[] toArray() {
+        return ids.toArray();
+    }
+
+    public byte[] serialize() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ids.runOptimize();
+
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeByte(FORMAT_VERSION);
+            ids.serializePortable(output);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    public static ContactIdBitmap deserialize(byte[] data) {
+        Roaring64NavigableMap ids = new Roaring64NavigableMap();
+
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(data))) {
+            int version = input.readUnsignedByte();
+
+            if (version != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported bitmap format version " + version);
+            }
+
+            ids.deserializePortable(input);
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("Corrupt contact id bitmap", ex);
+        }
+
+        return new ContactIdBitmap(ids);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof ContactIdBitmap other && Arrays.equals(toArray(), other.toArray());
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(toArray());
+    }
+
+    @Override
+    public String toString() {
+        return "ContactIdBitmap{cardinality=" + cardinality() + "}";
+    }
+
+    private static long checked(long id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Contact id must not be negative, got " + id);
+        }
+
+        return id;
+    }
+}
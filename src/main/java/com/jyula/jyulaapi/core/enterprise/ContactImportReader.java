@@ -0,0 +1,227 @@
+package com.jyula.jyulaapi.core.enterprise;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads contacts from an uploaded CSV or NDJSON stream one record at a time, so an import never
+ * holds more than the current record in memory.
+ *
+ * <p>CSV input needs a header naming the {@code email} and {@code name} columns, in any order;
+ * other columns are ignored and quoted fields may contain commas, doubled quotes and line
+ * breaks. NDJSON input has one object with {@code email} and {@code name} per line. A record that
+ * cannot be read is returned with an {@code error} rather than failing the whole import.
+ */
+public abstract class ContactImportReader implements Closeable {
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    protected final BufferedReader reader;
+
+    private ContactImportReader(InputStream input) {
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    public static ContactImportReader open(InputStream input, Format format) {
+        return format == Format.CSV ? new Csv(input) : new Ndjson(input);
+    }
+
+    /**
+     * Returns the next record, or {@code null} once the input is exhausted.
+     */
+    public abstract Row next() throws IOException;
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    public enum Format {
+        CSV, NDJSON;
+
+        public static Format fromContentType(String contentType) {
+            String normalized = contentType == null ? "" : contentType.toLowerCase();
+
+            if (normalized.contains("json")) {
+                return NDJSON;
+            }
+
+            if (normalized.contains("csv") || normalized.startsWith("text/plain")) {
+                return CSV;
+            }
+
+            throw new BussinessException("Unsupported import content type = " + contentType);
+        }
+
+        public static Format fromName(String name) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(name)) {
+                    return format;
+                }
+            }
+
+            throw new BussinessException("Unsupported format = " + name);
+        }
+    }
+
+    /**
+     * {@code line} is where the record starts in the input, counting from 1.
+     */
+    public record Row(long line, String email, String name, String error) {
+    }
+
+    private static final class Csv extends ContactImportReader {
+        private long physicalLine;
+        private int emailColumn = -1;
+        private int nameColumn = -1;
+
+        private Csv(InputStream input) {
+            super(input);
+        }
+
+        @Override
+        public Row next() throws IOException {
+            if (emailColumn < 0) {
+                readHeader();
+            }
+
+            List<String> fields;
+            long line;
+
+            do {
+                line = physicalLine + 1;
+                fields = readRecord();
+
+                if (fields == null) {
+                    return null;
+                }
+            } while (fields.size() == 1 && fields.get(0).isBlank());
+
+            if (fields.size() <= emailColumn) {
+                return new Row(line, null, null, "missing email column");
+            }
+
+            return new Row(line, fields.get(emailColumn),
+                    nameColumn >= 0 && nameColumn < fields.size() ? fields.get(nameColumn) : null, null);
+        }
+
+        private void readHeader() throws IOException {
+            List<String> header = readRecord();
+
+            for (int i = 0; header != null && i < header.size(); i++) {
+                String column = header.get(i).replace("\uFEFF", "").trim().toLowerCase();
+
+                if (column.equals("email")) {
+                    emailColumn = i;
+                } else if (column.equals("name")) {
+                    nameColumn = i;
+                }
+            }
+
+            if (emailColumn < 0) {
+                throw new BussinessException("CSV header must contain an email column");
+            }
+        }
+
+        private List<String> readRecord() throws IOException {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean read = false;
+            int c;
+
+            while ((c = reader.read()) != -1) {
+                read = true;
+
+                if (quoted) {
+                    if (c == '"') {
+                        reader.mark(1);
+                        int following = reader.read();
+
+                        if (following == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+
+                            if (following != -1) {
+                                reader.reset();
+                            }
+                        }
+                    } else {
+                        if (c == '\n') {
+                            physicalLine++;
+                        }
+
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.isEmpty()) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    physicalLine++;
+                    fields.add(field.toString());
+                    return fields;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+            }
+
+            if (!read) {
+                return null;
+            }
+
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+
+    private static final class Ndjson extends ContactImportReader {
+        private long line;
+
+        private Ndjson(InputStream input) {
+            super(input);
+        }
+
+        @Override
+        public Row next() throws IOException {
+            String text;
+
+            do {
+                text = reader.readLine();
+                line++;
+
+                if (text == null) {
+                    return null;
+                }
+            } while (text.isBlank());
+
+            try {
+                JsonNode node = JSON.readTree(text);
+
+                if (!node.isObject()) {
+                    return new Row(line, null, null, "not a JSON object");
+                }
+
+                return new Row(line, textOf(node, "email"), textOf(node, "name"), null);
+            } catch (JsonProcessingException ex) {
+                return new Row(line, null, null, "malformed JSON");
+            }
+        }
+
+        private static String textOf(JsonNode node, String field) {
+            JsonNode value = node.get(field);
+            return value == null || value.isNull() ? null : value.asText();
+        }
+    }
+}
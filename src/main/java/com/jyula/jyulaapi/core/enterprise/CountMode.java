@@ -0,0 +1,19 @@
+package com.jyula.jyulaapi.core.enterprise;
+
+/**
+ * How a paged listing computes its total: {@code NONE} skips it and only says whether another page
+ * follows, {@code ESTIMATE} uses a cheap approximation and {@code EXACT} runs a full count.
+ */
+public enum CountMode {
+    NONE, ESTIMATE, EXACT;
+
+    public static CountMode fromName(String name) {
+        for (CountMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(name)) {
+                return mode;
+            }
+        }
+
+        throw new BussinessException("Unsupported count = " + name);
+    }
+}
@@ -0,0 +1,129 @@
+package com.jyula.jyulaapi.core.enterprise;
+
+import com.jyula.jyulaapi.core.entities.BaseEntity;
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.DateTimePath;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.jpa.JPQLQuery;
+import com.querydsl.jpa.impl.JPAQuery;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+import org.springframework.data.jpa.repository.support.Querydsl;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import org.springframework.data.querydsl.SimpleEntityPathResolver;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Repository base class backing the methods {@link CustomQuerydslPredicateExecutor} adds on top
+ * of Querydsl: count-free slices, cursor streaming and keyset pagination.
+ */
+public class CustomJpaRepository<T, ID> extends SimpleJpaRepository<T, ID> {
+    private final EntityManager entityManager;
+    private final Class<T> entityType;
+    private final String idAttribute;
+
+    public CustomJpaRepository(JpaEntityInformation<T, ?> entityInformation, EntityManager entityManager) {
+        super(entityInformation, entityManager);
+        this.entityManager = entityManager;
+        this.entityType = entityInformation.getJavaType();
+        this.idAttribute = entityInformation.getIdAttribute() != null
+                ? entityInformation.getIdAttribute().getName()
+                : null;
+    }
+
+    public Slice<T> findSlice(Predicate predicate, Pageable pageable) {
+        EntityPath<T> path = SimpleEntityPathResolver.INSTANCE.createPath(entityType);
+        Querydsl querydsl = new Querydsl(entityManager, new PathBuilder<>(path.getType(), path.getMetadata()));
+        JPQLQuery<T> query = querydsl.applyPagination(pageable,
+                new JPAQuery<T>(entityManager).select(path).from(path).where(predicate));
+
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(query.fetch(), pageable, false);
+        }
+
+        List<T> rows = query.limit(pageable.getPageSize() + 1L).fetch();
+        boolean hasNext = rows.size() > pageable.getPageSize();
+
+        return new SliceImpl<>(hasNext ? List.copyOf(rows.subList(0, pageable.getPageSize())) : rows,
+                pageable, hasNext);
+    }
+
+    /**
+     * Rows are read through a forward-only JDBC cursor and every entity is detached as it is handed
+     * out, so neither the driver nor the persistence context grows with the result size; lazy
+     * associations of streamed entities can therefore not be navigated. Must be called inside a
+     * transaction, which Postgres needs to keep the cursor open, and the stream must be closed
+     * when done.
+     */
+    public Stream<T> stream(Predicate predicate, int fetchSize) {
+        EntityPath<T> path = SimpleEntityPathResolver.INSTANCE.createPath(entityType);
+        JPAQuery<T> query = new JPAQuery<T>(entityManager)
+                .select(path)
+                .from(path)
+                .where(predicate)
+                .setHint(QueryHints.FETCH_SIZE, fetchSize)
+                .setHint(QueryHints.READ_ONLY, true);
+
+        if (idAttribute != null) {
+            query.orderBy(new PathBuilder<>(path.getType(), path.getMetadata())
+                    .getComparable(idAttribute, Comparable.class).asc());
+        }
+
+        return query.stream().peek(entityManager::detach);
+    }
+
+    /**
+     * Seeks past {@code after} on {@code (created_at, id)} and reads one row more than requested to
+     * know whether another page follows. The redundant {@code created_at >= ?} bound lets the
+     * {@code (created_at, id)} index start the scan at the cursor instead of filtering from the
+     * first row.
+     */
+    public KeysetPage<T> findAfter(Predicate predicate, String after, int size) {
+        if (!BaseEntity.class.isAssignableFrom(entityType)) {
+            throw new UnsupportedOperationException(entityType.getSimpleName() + " has no created_at to seek on");
+        }
+
+        if (size < 1) {
+            throw new BussinessException("size must be greater than zero");
+        }
+
+        EntityPath<T> path = SimpleEntityPathResolver.INSTANCE.createPath(entityType);
+        PathBuilder<T> builder = new PathBuilder<>(path.getType(), path.getMetadata());
+        DateTimePath<LocalDateTime> createdAt = builder.getDateTime("createdAt", LocalDateTime.class);
+        NumberPath<Long> id = builder.getNumber("id", Long.class);
+
+        BooleanBuilder where = new BooleanBuilder(predicate);
+        if (after != null && !after.isEmpty()) {
+            KeysetPage.Cursor cursor = KeysetPage.Cursor.decode(after);
+            where.and(createdAt.goe(cursor.createdAt()))
+                    .and(createdAt.gt(cursor.createdAt()).or(id.gt(cursor.id())));
+        }
+
+        List<T> rows = new JPAQuery<T>(entityManager)
+                .select(path)
+                .from(path)
+                .where(where)
+                .orderBy(createdAt.asc(), id.asc())
+                .limit(size + 1L)
+                .fetch();
+
+        if (rows.size() <= size) {
+            return new KeysetPage<>(rows, size, null);
+        }
+
+        List<T> content = rows.subList(0, size);
+        BaseEntity last = (BaseEntity) content.get(size - 1);
+        return new KeysetPage<>(List.copyOf(content), size,
+                new KeysetPage.Cursor(last.getCreatedAt(), last.getId()).encode());
+    }
+}
@@ -4,9 +4,11 @@ import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.Predicate;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.querydsl.QuerydslPredicateExecutor;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface CustomQuerydslPredicateExecutor<T> extends QuerydslPredicateExecutor<T> {
 
@@ -22,6 +24,34 @@ public interface CustomQuerydslPredicateExecutor<T> extends QuerydslPredicateExe
         BooleanBuilder booleanBuilder = BooleanBuilderUtil.buildPredicateFromFilter(filter, entityType);
         return this.findAll(booleanBuilder, pageable);
     }
-}
 
+    /**
+     * Offset page without a count query: reads one row more than the page size to know whether
+     * another page follows. Implemented by {@link CustomJpaRepository}.
+     */
+    Slice<T> findSlice(Predicate predicate, Pageable pageable);
+
+    /**
+     * Streams every match through a database cursor reading {@code fetchSize} rows at a time,
+     * ordered by id. Implemented by {@link CustomJpaRepository}; call it inside a transaction and
+     * close the stream.
+     */
+    Stream<T> stream(Predicate predicate, int fetchSize);
+
+    default Stream<T> stream(String filter, Class<T> entityType, int fetchSize) {
+        BooleanBuilder booleanBuilder = BooleanBuilderUtil.buildPredicateFromFilter(filter, entityType);
+        return this.stream(booleanBuilder, fetchSize);
+    }
 
+    /**
+     * Keyset pagination on {@code (created_at, id)}: returns up to {@code size} rows after the
+     * {@code after} cursor, or from the start when it is {@code null}, without counting or
+     * skipping rows. Implemented by {@link CustomJpaRepository}.
+     */
+    KeysetPage<T> findAfter(Predicate predicate, String after, int size);
+
+    default KeysetPage<T> findAfter(String filter, Class<T> entityType, String after, int size) {
+        BooleanBuilder booleanBuilder = BooleanBuilderUtil.buildPredicateFromFilter(filter, entityType);
+        return this.findAfter(booleanBuilder, after, size);
+    }
+}
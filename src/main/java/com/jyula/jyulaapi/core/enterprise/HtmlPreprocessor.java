@@ -0,0 +1,241 @@
+package com.jyula.jyulaapi.core.enterprise;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Turns an email template as written by a user into the form that is actually sent: rules from
+ * {@code <style>} blocks inlined into matching elements, comments and redundant whitespace
+ * removed, and a text/plain alternative derived from the result. It runs once when a version is
+ * saved, never per recipient.
+ *
+ * <p>Only selectors mail clients commonly need are inlined: {@code tag}, {@code .class},
+ * {@code tag.class} and {@code #id}, including comma lists. Anything else, {@code @media} blocks
+ * in particular, stays in the {@code <style>} block, which is kept for clients that read it.
+ * {@code {{placeholders}}} pass through untouched.
+ */
+public final class HtmlPreprocessor {
+    private static final Pattern STYLE_BLOCK = Pattern.compile("<style[^>]*>(.*?)</style>",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern CSS_COMMENT = Pattern.compile("/\\*.*?\\*/", Pattern.DOTALL);
+    private static final Pattern SIMPLE_SELECTOR = Pattern.compile(
+            "([a-zA-Z][a-zA-Z0-9]*)|([a-zA-Z][a-zA-Z0-9]*)?\\.([\\w-]+)|#([\\w-]+)");
+    private static final Pattern START_TAG = Pattern.compile("<([a-zA-Z][a-zA-Z0-9]*)((?:\\s[^<>]*?)?)(/?)>");
+    private static final Pattern ATTRIBUTE = Pattern.compile(
+            "([a-zA-Z_:][-a-zA-Z0-9_:.]*)\\s*=\\s*(\"[^\"]*\"|'[^']*'|[^\\s\"'>]+)");
+    private static final Pattern HTML_COMMENT = Pattern.compile("<!--(?!\\[if).*?-->", Pattern.DOTALL);
+    private static final Pattern PRESERVED = Pattern.compile("<(pre|textarea)\\b.*?</\\1>",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern NON_CONTENT = Pattern.compile("<(head|style|script|title)\\b.*?</\\1>",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern LINE_BREAK = Pattern.compile("<br\\s*/?>", Pattern.CASE_INSENSITIVE);
+    private static final Pattern BLOCK_END = Pattern.compile("</(p|div|h[1-6]|li|tr|table|blockquote)>",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern LINK = Pattern.compile("<a\\s[^>]*href=\"([^\"]*)\"[^>]*>(.*?)</a>",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern TAG = Pattern.compile("<[^>]+>");
+    private static final Pattern BLANK_LINES = Pattern.compile("\\n\\s*\\n(\\s*\\n)+");
+    private static final Set<String> SKIPPED_TAGS = Set.of("html", "head", "meta", "title", "style", "link", "script");
+
+    private HtmlPreprocessor() {
+    }
+
+    public static Result process(String html) {
+        String compiled = minify(inlineCss(html));
+        return new Result(compiled, toText(compiled));
+    }
+
+    static String inlineCss(String html) {
+        List<Rule> rules = new ArrayList<>();
+        Matcher styles = STYLE_BLOCK.matcher(html);
+
+        while (styles.find()) {
+            parseRules(CSS_COMMENT.matcher(styles.group(1)).replaceAll(""), rules);
+        }
+
+        if (rules.isEmpty()) {
+            return html;
+        }
+
+        Matcher tags = START_TAG.matcher(html);
+        StringBuilder out = new StringBuilder(html.length() + html.length() / 4);
+
+        while (tags.find()) {
+            String tag = tags.group(1).toLowerCase();
+
+            if (SKIPPED_TAGS.contains(tag)) {
+                tags.appendReplacement(out, Matcher.quoteReplacement(tags.group()));
+                continue;
+            }
+
+            tags.appendReplacement(out, Matcher.quoteReplacement(applyRules(tags, tag, rules)));
+        }
+
+        tags.appendTail(out);
+        return out.toString();
+    }
+
+    private static void parseRules(String css, List<Rule> rules) {
+        int position = 0;
+
+        while (position < css.length()) {
+            int open = css.indexOf('{', position);
+
+            if (open < 0) {
+                return;
+            }
+
+            String selectors = css.substring(position, open).trim();
+            int close = matchingBrace(css, open);
+
+            if (!selectors.startsWith("@")) {
+                String declarations = css.substring(open + 1, close).trim();
+
+                for (String selector : selectors.split(",")) {
+                    Matcher simple = SIMPLE_SELECTOR.matcher(selector.trim());
+
+                    if (simple.matches() && !declarations.isEmpty()) {
+                        rules.add(new Rule(simple.group(1) != null ? simple.group(1) : simple.group(2),
+                                simple.group(3), simple.group(4), stripTrailingSemicolon(declarations)));
+                    }
+                }
+            }
+
+            position = close + 1;
+        }
+    }
+
+    private static int matchingBrace(String css, int open) {
+        int depth = 0;
+
+        for (int i = open; i < css.length(); i++) {
+            if (css.charAt(i) == '{') {
+                depth++;
+            } else if (css.charAt(i) == '}' && --depth == 0) {
+                return i;
+            }
+        }
+
+        return css.length() - 1;
+    }
+
+    private static String applyRules(Matcher tagMatch, String tag, List<Rule> rules) {
+        String attributes = tagMatch.group(2);
+        Map<String, String> parsed = new LinkedHashMap<>();
+        Matcher attribute = ATTRIBUTE.matcher(attributes);
+
+        while (attribute.find()) {
+            parsed.put(attribute.group(1).toLowerCase(), unquote(attribute.group(2)));
+        }
+
+        Set<String> classes = new HashSet<>(Arrays.asList(WHITESPACE.split(parsed.getOrDefault("class", "").trim())));
+        String id = parsed.get("id");
+        StringBuilder style = new StringBuilder();
+
+        // Lowest specificity first, so later declarations win as they would in the style block.
+        for (int specificity = 0; specificity < 3; specificity++) {
+            for (Rule rule : rules) {
+                if (rule.specificity() == specificity && rule.matches(tag, classes, id)) {
+                    style.append(rule.declarations()).append("; ");
+                }
+            }
+        }
+
+        if (style.isEmpty()) {
+            return tagMatch.group();
+        }
+
+        String existing = parsed.get("style");
+        if (existing != null && !existing.isBlank()) {
+            style.append(stripTrailingSemicolon(existing.trim()));
+        } else {
+            style.setLength(style.length() - 2);
+        }
+
+        String withoutStyle = ATTRIBUTE.matcher(attributes).replaceAll(match ->
+                match.group(1).equalsIgnoreCase("style") ? "" : Matcher.quoteReplacement(match.group())).stripTrailing();
+
+        return "<" + tagMatch.group(1) + withoutStyle + " style=\"" + style.toString().replace("\"", "'") + "\""
+                + tagMatch.group(3) + ">";
+    }
+
+    static String minify(String html) {
+        String withoutComments = HTML_COMMENT.matcher(html).replaceAll("");
+        Matcher preserved = PRESERVED.matcher(withoutComments);
+        StringBuilder out = new StringBuilder(withoutComments.length());
+        int position = 0;
+
+        while (preserved.find()) {
+            out.append(WHITESPACE.matcher(withoutComments.substring(position, preserved.start())).replaceAll(" "));
+            out.append(preserved.group());
+            position = preserved.end();
+        }
+
+        out.append(WHITESPACE.matcher(withoutComments.substring(position)).replaceAll(" "));
+        return out.toString().trim();
+    }
+
+    static String toText(String html) {
+        String text = NON_CONTENT.matcher(html).replaceAll("");
+        text = LINK.matcher(text).replaceAll(match -> Matcher.quoteReplacement(
+                match.group(2).equals(match.group(1)) ? match.group(1) : match.group(2) + " (" + match.group(1) + ")"));
+        text = LINE_BREAK.matcher(text).replaceAll("\n");
+        text = BLOCK_END.matcher(text).replaceAll("\n\n");
+        text = TAG.matcher(text).replaceAll("");
+        text = text.replace("&nbsp;", " ")
+                .replace("&lt;", "<")
+                .replace("&gt;", ">")
+                .replace("&quot;", "\"")
+                .replace("&#39;", "'")
+                .replace("&amp;", "&");
+
+        StringBuilder lines = new StringBuilder(text.length());
+        for (String line : text.split("\n", -1)) {
+            lines.append(line.replaceAll("[ \\t\\x0B\\f\\r]+", " ").trim()).append('\n');
+        }
+
+        return BLANK_LINES.matcher(lines).replaceAll("\n\n").trim();
+    }
+
+    private static String unquote(String value) {
+        return value.length() >= 2 && (value.charAt(0) == '"' || value.charAt(0) == '\'')
+                ? value.substring(1, value.length() - 1)
+                : value;
+    }
+
+    private static String stripTrailingSemicolon(String declarations) {
+        return declarations.endsWith(";") ? declarations.substring(0, declarations.length() - 1).trim() : declarations;
+    }
+
+    private record Rule(String tag, String className, String id, String declarations) {
+        int specificity() {
+            return id != null ? 2 : className != null ? 1 : 0;
+        }
+
+        boolean matches(String elementTag, Set<String> classes, String elementId) {
+            if (id != null) {
+                return id.equals(elementId);
+            }
+
+            if (tag != null && !tag.equalsIgnoreCase(elementTag)) {
+                return false;
+            }
+
+            return className == null || classes.contains(className);
+        }
+    }
+
+    /**
+     * {@code html} is what is sent, {@code text} the matching text/plain part.
+     */
+    public record Result(String html, String text) {
+    }
+}
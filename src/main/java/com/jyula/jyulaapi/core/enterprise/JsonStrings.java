@@ -0,0 +1,84 @@
+package com.jyula.jyulaapi.core.enterprise;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes JSON string content as UTF-8 straight into a byte buffer, for payloads assembled from
+ * pre-encoded fragments rather than through an object mapper.
+ */
+public final class JsonStrings {
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private JsonStrings() {
+    }
+
+    public static byte[] encode(CharSequence value) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(value.length() + 16);
+        writeEscaped(out, value);
+        return out.toByteArray();
+    }
+
+    /**
+     * Writes {@code value} as a complete JSON string, quotes included, or {@code null}.
+     */
+    public static void write(ByteArrayOutputStream out, CharSequence value) {
+        if (value == null) {
+            writeAscii(out, "null");
+            return;
+        }
+
+        out.write('"');
+        writeEscaped(out, value);
+        out.write('"');
+    }
+
+    /**
+     * Writes the escaped content of {@code value} without surrounding quotes.
+     */
+    public static void writeEscaped(ByteArrayOutputStream out, CharSequence value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            if (c == '"' || c == '\\') {
+                out.write('\\');
+                out.write(c);
+            } else if (c < 0x20) {
+                switch (c) {
+                    case '\n' -> writeAscii(out, "\\n");
+                    case '\r' -> writeAscii(out, "\\r");
+                    case '\t' -> writeAscii(out, "\\t");
+                    default -> {
+                        writeAscii(out, "\\u00");
+                        out.write(HEX[c >> 4]);
+                        out.write(HEX[c & 0xF]);
+                    }
+                }
+            } else if (c < 0x80) {
+                out.write(c);
+            } else if (c < 0x800) {
+                out.write(0xC0 | (c >> 6));
+                out.write(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                out.write(0xF0 | (codePoint >> 18));
+                out.write(0x80 | ((codePoint >> 12) & 0x3F));
+                out.write(0x80 | ((codePoint >> 6) & 0x3F));
+                out.write(0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                writeAscii(out, "\\ufffd");
+            } else {
+                out.write(0xE0 | (c >> 12));
+                out.write(0x80 | ((c >> 6) & 0x3F));
+                out.write(0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    private static void writeAscii(ByteArrayOutputStream out, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            out.write(text.charAt(i));
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.jyula.jyulaapi.core.enterprise;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset (seek) listing ordered by {@code (created_at, id)}. {@code next} is the
+ * opaque cursor to pass as {@code after} for the following page, or {@code null} on the last one.
+ * Unlike offset pages there is no total count, which is what keeps deep pages as cheap as the
+ * first.
+ */
+public record KeysetPage<T>(List<T> content, int size, String next) {
+
+    public <R> KeysetPage<R> map(Function<? super T, ? extends R> mapper) {
+        return new KeysetPage<>(content.stream().<R>map(mapper).toList(), size, next);
+    }
+
+    /**
+     * Position of the last row of a page. Encoded as URL-safe base64 so clients treat it as
+     * opaque.
+     */
+    public record Cursor(LocalDateTime createdAt, Long id) {
+        private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+        private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+        public String encode() {
+            return ENCODER.encodeToString((createdAt + "|" + id).getBytes(StandardCharsets.UTF_8));
+        }
+
+        public static Cursor decode(String token) {
+            try {
+                String decoded = new String(DECODER.decode(token), StandardCharsets.UTF_8);
+                int separator = decoded.lastIndexOf('|');
+
+                return new Cursor(LocalDateTime.parse(decoded.substring(0, separator)),
+                        Long.parseLong(decoded.substring(separator + 1)));
+            } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException ex) {
+                throw new BussinessException("Invalid cursor = " + token);
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.jyula.jyulaapi.core.enterprise;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Set algebra over segment memberships, e.g. {@code exclude(union(1, 2), 3)}. The same expression
+ * renders to a {@code select contact_id} query over {@code segments_contacts}, so the database can
+ * materialize it, and evaluates on {@link ContactIdBitmap}s, so the result's bitmap is built
+ * without reading the contacts back.
+ */
+public sealed interface SegmentExpression {
+    int MAX_DEPTH = 16;
+
+    static SegmentExpression members(Long segmentId) {
+        if (segmentId == null) {
+            throw new BussinessException("segment cannot be null");
+        }
+
+        return new Members(segmentId);
+    }
+
+    static SegmentExpression operation(String operator, List<SegmentExpression> operands) {
+        return new Operation(Operator.fromName(operator), List.copyOf(operands));
+    }
+
+    /**
+     * Ids of every segment the expression reads.
+     */
+    default Set<Long> segmentIds() {
+        Set<Long> ids = new HashSet<>();
+        collectSegmentIds(ids);
+        return ids;
+    }
+
+    void collectSegmentIds(Set<Long> ids);
+
+    /**
+     * Renders the expression as a query selecting distinct {@code contact_id}s, appending the
+     * values of its placeholders to {@code parameters} in order.
+     */
+    String toSql(List<Object> parameters);
+
+    /**
+     * Evaluates the expression on the bitmaps of the segments it reads, keyed by segment id. The
+     * given bitmaps are left unchanged.
+     */
+    ContactIdBitmap evaluate(Map<Long, ContactIdBitmap> members);
+
+    record Members(long segmentId) implements SegmentExpression {
+        @Override
+        public void collectSegmentIds(Set<Long> ids) {
+            ids.add(segmentId);
+        }
+
+        @Override
+        public String toSql(List<Object> parameters) {
+            parameters.add(segmentId);
+            return "select contact_id from segments_contacts where segment_id = ?";
+        }
+
+        @Override
+        public ContactIdBitmap evaluate(Map<Long, ContactIdBitmap> members) {
+            return members.get(segmentId).copy();
+        }
+    }
+
+    /**
+     * {@code EXCLUDE} keeps the members of the first operand that are in none of the others.
+     */
+    record Operation(Operator operator, List<SegmentExpression> operands) implements SegmentExpression {
+        public Operation {
+            if (operands.size() < 2) {
+                throw new BussinessException(operator.name().toLowerCase() + " needs at least two operands");
+            }
+        }
+
+        @Override
+        public void collectSegmentIds(Set<Long> ids) {
+            operands.forEach(operand -> operand.collectSegmentIds(ids));
+        }
+
+        @Override
+        public String toSql(List<Object> parameters) {
+            return operands.stream()
+                    .map(operand -> "(" + operand.toSql(parameters) + ")")
+                    .collect(Collectors.joining(" " + operator.sql + " "));
+        }
+
+        @Override
+        public ContactIdBitmap evaluate(Map<Long, ContactIdBitmap> members) {
+            ContactIdBitmap result = operands.get(0).evaluate(members);
+
+            for (SegmentExpression operand : operands.subList(1, operands.size())) {
+                ContactIdBitmap other = operand.evaluate(members);
+
+                switch (operator) {
+                    case UNION -> result.or(other);
+                    case INTERSECT -> result.and(other);
+                    case EXCLUDE -> result.andNot(other);
+                }
+            }
+
+            return result;
+        }
+    }
+
+    enum Operator {
+        UNION("union"), INTERSECT("intersect"), EXCLUDE("except");
+
+        private final String sql;
+
+        Operator(String sql) {
+            this.sql = sql;
+        }
+
+        public static Operator fromName(String name) {
+            for (Operator operator : values()) {
+                if (operator.name().equalsIgnoreCase(name)) {
+                    return operator;
+                }
+            }
+
+            throw new BussinessException("Unsupported operator = " + name);
+        }
+    }
+}
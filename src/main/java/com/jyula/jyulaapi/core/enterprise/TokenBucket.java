@@ -0,0 +1,69 @@
+package com.jyula.jyulaapi.core.enterprise;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.LongSupplier;
+
+/**
+ * Thread-safe token bucket whose refill rate can be changed while it is in use. The bucket holds
+ * at most one second worth of tokens. A caller that takes more tokens than are available is not
+ * refused; it is told how long to wait, and the debt is paid by later refills.
+ */
+public class TokenBucket {
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final LongSupplier nanoClock;
+    private double ratePerSecond;
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucket(double ratePerSecond) {
+        this(ratePerSecond, System::nanoTime);
+    }
+
+    public TokenBucket(double ratePerSecond, LongSupplier nanoClock) {
+        if (ratePerSecond <= 0) {
+            throw new IllegalArgumentException("ratePerSecond must be positive, got " + ratePerSecond);
+        }
+
+        this.nanoClock = nanoClock;
+        this.ratePerSecond = ratePerSecond;
+        this.tokens = ratePerSecond;
+        this.lastRefill = nanoClock.getAsLong();
+    }
+
+    public void acquire(int permits) throws InterruptedException {
+        long waitNanos = reserve(permits);
+
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Takes {@code permits} tokens and returns how many nanoseconds the caller has to wait before
+     * using them.
+     */
+    public synchronized long reserve(int permits) {
+        refill();
+        tokens -= permits;
+        return tokens >= 0 ? 0 : (long) (-tokens / ratePerSecond * NANOS_PER_SECOND);
+    }
+
+    public synchronized double getRate() {
+        return ratePerSecond;
+    }
+
+    public synchronized double adjustRate(DoubleUnaryOperator adjustment) {
+        refill();
+        ratePerSecond = adjustment.applyAsDouble(ratePerSecond);
+        tokens = Math.min(tokens, ratePerSecond);
+        return ratePerSecond;
+    }
+
+    private void refill() {
+        long now = nanoClock.getAsLong();
+        tokens = Math.min(ratePerSecond, tokens + (now - lastRefill) / NANOS_PER_SECOND * ratePerSecond);
+        lastRefill = now;
+    }
+}
@@ -36,6 +36,19 @@ public class BaseEntity {
         this.updatedAt = LocalDateTime.now();
     }
 
+    // Builders bypass the constructors above, so timestamps are filled in here for rows created
+    // through them. Keyset pagination relies on created_at never being null.
+    @PrePersist
+    protected void onPrePersist() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+
+        if (updatedAt == null) {
+            updatedAt = createdAt;
+        }
+    }
+
     @Override
     public final boolean equals(Object o) {
         if (this == o) return true;
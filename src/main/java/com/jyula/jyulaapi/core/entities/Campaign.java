@@ -12,7 +12,9 @@ import java.util.Set;
 @Getter
 @Entity
 @SuperBuilder
-@Table(name = "campaigns")
+@Table(name = "campaigns", indexes = {
+    @Index(name = "idx_campaigns_created_at_id", columnList = "created_at, id")
+})
 public class Campaign extends BaseEntity {
     @Column(name = "name")
     private String name;
@@ -21,6 +23,16 @@ public class Campaign extends BaseEntity {
     @JoinColumn(name = "template_id", referencedColumnName = "id")
     private Template template;
 
+    @ManyToOne
+    @JoinColumn(name = "template_content_id", referencedColumnName = "id")
+    private TemplateContent templateContent;
+
+    @Column(name = "delivery_cursor")
+    private Long deliveryCursor;
+
+    @Column(name = "audience_size")
+    private Long audienceSize;
+
     @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(name = "campaigns_contacts",
             joinColumns = @JoinColumn(name = "campaign_id"),
@@ -0,0 +1,48 @@
+package com.jyula.jyulaapi.core.entities;
+
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@ToString
+@NoArgsConstructor
+@Setter
+@Getter
+@Entity
+@SuperBuilder
+@Table(name = "campaign_dispatch_jobs", indexes = {
+    @Index(name = "idx_campaign_dispatch_jobs_status", columnList = "status, id")
+})
+public class CampaignDispatchJob extends BaseEntity {
+    @Column(name = "status")
+    @Enumerated(EnumType.STRING)
+    private JobStatus status;
+
+    @ManyToOne
+    @JoinColumn(name = "campaign_id", referencedColumnName = "id")
+    private Campaign campaign;
+
+    @Column(name = "attempts")
+    private int attempts;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "heartbeat_at")
+    private LocalDateTime heartbeatAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @Column(name = "last_error", columnDefinition = "text")
+    private String lastError;
+
+    public enum JobStatus {
+        PENDING,
+        RUNNING,
+        COMPLETED,
+        FAILED,
+    }
+}
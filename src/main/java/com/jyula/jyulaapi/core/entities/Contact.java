@@ -5,8 +5,12 @@ import lombok.experimental.SuperBuilder;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.Index;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.persistence.Table;
 import javax.persistence.UniqueConstraint;
+import java.util.Locale;
 
 @ToString
 @NoArgsConstructor
@@ -14,7 +18,9 @@ import javax.persistence.UniqueConstraint;
 @Getter
 @Entity
 @SuperBuilder
-@Table(name = "contacts", uniqueConstraints = {
+@Table(name = "contacts", indexes = {
+    @Index(name = "idx_contacts_created_at_id", columnList = "created_at, id")
+}, uniqueConstraints = {
     @UniqueConstraint(columnNames = "email")
 })
 public class Contact extends BaseEntity {
@@ -22,4 +28,18 @@ public class Contact extends BaseEntity {
     private String email;
     @Column(name = "name")
     private String name;
+
+    /**
+     * Emails are compared case-insensitively, so they are stored trimmed and lower-cased and the
+     * unique {@code email} column rejects two spellings of the same address.
+     */
+    public static String normalizeEmail(String email) {
+        return email != null ? email.trim().toLowerCase(Locale.ROOT) : null;
+    }
+
+    @PrePersist
+    @PreUpdate
+    protected void onWriteNormalizeEmail() {
+        email = normalizeEmail(email);
+    }
 }
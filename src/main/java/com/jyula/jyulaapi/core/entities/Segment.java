@@ -14,7 +14,9 @@ import java.util.Set;
 @Getter
 @Entity
 @SuperBuilder
-@Table(name = "segments")
+@Table(name = "segments", indexes = {
+    @Index(name = "idx_segments_created_at_id", columnList = "created_at, id")
+})
 public class Segment extends BaseEntity {
     @Column(name = "name")
     private String name;
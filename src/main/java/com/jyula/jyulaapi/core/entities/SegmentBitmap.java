@@ -0,0 +1,42 @@
+package com.jyula.jyulaapi.core.entities;
+
+import com.jyula.jyulaapi.core.enterprise.ContactIdBitmap;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+import javax.persistence.*;
+
+/**
+ * Serialized {@link ContactIdBitmap} of a segment's contact ids, kept in step with
+ * {@code segments_contacts} by {@code SegmentBitmapStore}. Stored apart from {@link Segment} so
+ * listing segments never reads the bitmaps.
+ */
+@ToString
+@NoArgsConstructor
+@Setter
+@Getter
+@Entity
+@SuperBuilder
+@Table(name = "segment_bitmaps", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_segment_bitmaps_segment_id", columnNames = "segment_id")
+})
+public class SegmentBitmap extends BaseEntity {
+    @Column(name = "segment_id")
+    private Long segmentId;
+
+    @Column(name = "data")
+    @ToString.Exclude
+    private byte[] data;
+
+    @Column(name = "cardinality")
+    private Long cardinality;
+
+    public ContactIdBitmap getBitmap() {
+        return ContactIdBitmap.deserialize(data);
+    }
+
+    public void setBitmap(ContactIdBitmap bitmap) {
+        this.data = bitmap.serialize();
+        this.cardinality = bitmap.cardinality();
+    }
+}
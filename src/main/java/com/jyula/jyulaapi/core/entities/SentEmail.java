@@ -5,6 +5,7 @@ import lombok.*;
 import lombok.experimental.SuperBuilder;
 
 import javax.persistence.*;
+import java.time.LocalDateTime;
 
 @ToString
 @NoArgsConstructor
@@ -12,7 +13,12 @@ import javax.persistence.*;
 @Getter
 @Entity
 @SuperBuilder
-@Table(name = "sent_emails")
+@Table(name = "sent_emails", indexes = {
+    @Index(name = "idx_sent_emails_next_attempt", columnList = "next_attempt_at, attempts"),
+    @Index(name = "idx_sent_emails_created_at_id", columnList = "created_at, id")
+}, uniqueConstraints = {
+    @UniqueConstraint(name = "uk_sent_emails_campaign_contact", columnNames = {"campaign_id", "contact_id"})
+})
 public class SentEmail extends BaseEntity {
     @Column(name = "status")
     @Enumerated(EnumType.STRING)
@@ -30,6 +36,12 @@ public class SentEmail extends BaseEntity {
     @JoinColumn(name = "contact_id", referencedColumnName = "id")
     private Contact contact;
 
+    @Column(name = "attempts")
+    private Integer attempts;
+
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
     public enum EmailStatus {
         SENT,
         FAILED,
@@ -14,7 +14,9 @@ import java.util.Set;
 @Getter
 @Entity
 @SuperBuilder
-@Table(name = "templates")
+@Table(name = "templates", indexes = {
+    @Index(name = "idx_templates_created_at_id", columnList = "created_at, id")
+})
 public class Template extends BaseEntity {
     @Column(name = "name")
     private String name;
@@ -0,0 +1,91 @@
+package com.jyula.jyulaapi.core.entities;
+
+import com.jyula.jyulaapi.core.enterprise.CompressedText;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+import javax.persistence.*;
+
+@ToString
+@NoArgsConstructor
+@Setter
+@Getter
+@Entity
+@SuperBuilder
+@Table(name = "template_bodies", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_template_bodies_hash", columnNames = "hash")
+})
+public class TemplateBody extends BaseEntity {
+    @Column(name = "hash", length = 64)
+    private String hash;
+
+    @Column(name = "data")
+    @ToString.Exclude
+    private byte[] data;
+
+    @Column(name = "size")
+    private Integer size;
+
+    /**
+     * Output of the save-time preprocessing (inlined CSS, minified), compressed. This is what gets
+     * sent; {@code data} is kept as written so it can be edited again.
+     */
+    @Column(name = "compiled_data")
+    @ToString.Exclude
+    private byte[] compiledData;
+
+    @Column(name = "compiled_size")
+    private Integer compiledSize;
+
+    @Column(name = "plain_text_data")
+    @ToString.Exclude
+    private byte[] plainTextData;
+
+    @Transient
+    @ToString.Exclude
+    private volatile String text;
+
+    @Transient
+    @ToString.Exclude
+    private volatile String compiledText;
+
+    @Transient
+    @ToString.Exclude
+    private volatile String plainText;
+
+    public String getText() {
+        String decompressed = text;
+
+        if (decompressed == null && data != null) {
+            decompressed = CompressedText.decompress(data);
+            text = decompressed;
+        }
+
+        return decompressed;
+    }
+
+    /**
+     * The preprocessed HTML, or the source for bodies stored before preprocessing existed.
+     */
+    public String getCompiledText() {
+        String decompressed = compiledText;
+
+        if (decompressed == null) {
+            decompressed = compiledData != null ? CompressedText.decompress(compiledData) : getText();
+            compiledText = decompressed;
+        }
+
+        return decompressed;
+    }
+
+    public String getPlainText() {
+        String decompressed = plainText;
+
+        if (decompressed == null && plainTextData != null) {
+            decompressed = CompressedText.decompress(plainTextData);
+            plainText = decompressed;
+        }
+
+        return decompressed;
+    }
+}
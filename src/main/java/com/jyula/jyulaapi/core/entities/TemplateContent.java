@@ -20,13 +20,38 @@ public class TemplateContent extends BaseEntity {
     @Column(name = "about")
     private String about;
 
+    /**
+     * Inline body of versions written before bodies moved to {@link TemplateBody}. New versions
+     * leave it empty and point at a shared, compressed body instead.
+     */
     @Column(name = "content", columnDefinition = "text")
     private String content;
 
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "body_id", referencedColumnName = "id")
+    @ToString.Exclude
+    private TemplateBody body;
+
     @Column(name = "is_latest")
     private boolean isLatest;
 
     @ManyToOne
     @JoinColumn(name = "template_id", referencedColumnName = "id")
     private Template template;
+
+    public String getContent() {
+        return body != null ? body.getText() : content;
+    }
+
+    /**
+     * The preprocessed body that is sent, falling back to the content as written for versions
+     * saved before preprocessing.
+     */
+    public String getCompiledContent() {
+        return body != null ? body.getCompiledText() : content;
+    }
+
+    public String getPlainTextContent() {
+        return body != null ? body.getPlainText() : null;
+    }
 }
@@ -1,26 +1,73 @@
 package com.jyula.jyulaapi.core.providers;
 
+import com.jyula.jyulaapi.core.enterprise.CompiledTemplate;
 import lombok.Getter;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
 public interface MailSenderProvider {
     SendMailResponse send(SendMailRequest request) throws SendMailException;
 
-    @Getter
+    /**
+     * Sends every request and returns one result per request, in the same order. A failure of one
+     * item never aborts the others; it is reported in its {@link SendMailResult} instead.
+     */
+    default List<SendMailResult> sendBatch(List<SendMailRequest> requests) {
+        List<SendMailResult> results = new ArrayList<>(requests.size());
+
+        for (SendMailRequest request : requests) {
+            try {
+                results.add(SendMailResult.sent(request, send(request)));
+            } catch (SendMailException ex) {
+                results.add(SendMailResult.failed(request, ex));
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * A request either carries its final {@code subject} and {@code content}, or a
+     * {@link Personalization} shared by a whole campaign plus the recipient's values. Adapters that
+     * can use the latter directly avoid rendering the body into a string for every recipient;
+     * {@link #getSubject()} and {@link #getContent()} render on demand for those that cannot.
+     */
     class SendMailRequest {
+        @Getter
         private final String from;
+        @Getter
         private final String to;
         private final String subject;
         private final String content;
+        @Getter
+        private final Personalization personalization;
 
-        private SendMailRequest(String from, String to, String subject, String content) {
+        private SendMailRequest(String from, String to, String subject, String content,
+                                Personalization personalization) {
             this.from = from;
             this.to = to;
             this.subject = subject;
             this.content = content;
+            this.personalization = personalization;
+        }
+
+        public String getSubject() {
+            return subject != null || personalization == null
+                    ? subject
+                    : personalization.subject().render(personalization.values(), new StringBuilder());
+        }
+
+        public String getContent() {
+            return content != null || personalization == null
+                    ? content
+                    : personalization.body().render(personalization.values(), new StringBuilder());
         }
 
         public Builder toBuilder() {
-            return new Builder(from, to, subject, content);
+            return new Builder(from, to, subject, content, personalization);
         }
 
         public static Builder builder() {
@@ -32,15 +79,17 @@ public interface MailSenderProvider {
             private String to;
             private String subject;
             private String content;
+            private Personalization personalization;
 
             private Builder() {
             }
 
-            private Builder(String from, String to, String subject, String content) {
+            private Builder(String from, String to, String subject, String content, Personalization personalization) {
                 this.from = from;
                 this.to = to;
                 this.subject = subject;
                 this.content = content;
+                this.personalization = personalization;
             }
 
             public Builder from(String from) {
@@ -63,11 +112,20 @@ public interface MailSenderProvider {
                 return this;
             }
 
+            public Builder personalization(Personalization personalization) {
+                this.personalization = personalization;
+                return this;
+            }
+
             public SendMailRequest build() {
-                return new SendMailRequest(from, to, subject, content);
+                return new SendMailRequest(from, to, subject, content, personalization);
             }
         }
 
+        /**
+         * Compares the recipient and, for personalized requests, the compiled templates by
+         * identity, so equality never renders a body.
+         */
         @Override
         public boolean equals(Object o) {
             if (this == o) return true;
@@ -75,38 +133,89 @@ public interface MailSenderProvider {
 
             SendMailRequest that = (SendMailRequest) o;
 
-            if (!from.equals(that.from)) return false;
-            if (!to.equals(that.to)) return false;
-            if (!subject.equals(that.subject)) return false;
-            return content.equals(that.content);
+            if (!Objects.equals(from, that.from)) return false;
+            if (!Objects.equals(to, that.to)) return false;
+            if (!Objects.equals(subject, that.subject)) return false;
+            if (!Objects.equals(content, that.content)) return false;
+            if (personalization == null || that.personalization == null) {
+                return personalization == that.personalization;
+            }
+
+            return personalization.subject() == that.personalization.subject()
+                    && personalization.body() == that.personalization.body()
+                    && personalization.text() == that.personalization.text();
         }
 
         @Override
         public int hashCode() {
-            int result = from.hashCode();
-            result = 31 * result + to.hashCode();
-            result = 31 * result + subject.hashCode();
-            result = 31 * result + content.hashCode();
+            int result = Objects.hashCode(from);
+            result = 31 * result + Objects.hashCode(to);
+            result = 31 * result + Objects.hashCode(subject);
+            result = 31 * result + Objects.hashCode(content);
+            result = 31 * result + (personalization != null ? System.identityHashCode(personalization.body()) : 0);
             return result;
         }
 
+        /**
+         * Names the sender and recipient only; bodies stay out of logs and exception messages.
+         */
         @Override
         public String toString() {
             return "SendMailRequest{" +
                     "from='" + from + '\'' +
                     ", to='" + to + '\'' +
-                    ", subject='" + subject + '\'' +
-                    ", content='" + content + '\'' +
+                    ", personalized=" + (personalization != null) +
                     '}';
         }
     }
 
+    /**
+     * Compiled subject, HTML body and optional text/plain body shared by every request of a
+     * campaign, plus the values of one recipient.
+     */
+    record Personalization(CompiledTemplate subject, CompiledTemplate body, CompiledTemplate text,
+                           Function<String, String> values) {
+    }
+
     record SendMailResponse(String id) {
     }
 
+    record SendMailResult(SendMailRequest request, SendMailResponse response, SendMailException error) {
+        public static SendMailResult sent(SendMailRequest request, SendMailResponse response) {
+            return new SendMailResult(request, response, null);
+        }
+
+        public static SendMailResult failed(SendMailRequest request, SendMailException error) {
+            return new SendMailResult(request, null, error);
+        }
+
+        public boolean isSent() {
+            return error == null;
+        }
+    }
+
     class SendMailException extends RuntimeException {
+        private final Integer statusCode;
+
         public SendMailException(SendMailRequest request, Exception ex) {
-            super("Error at sending email, data=" + request.toString() + ", error=" + ex.getMessage());
+            this(request, ex, null);
+        }
+
+        public SendMailException(SendMailRequest request, Exception ex, Integer statusCode) {
+            super("Error at sending email, data=" + request + ", error=" + ex.getMessage());
+            this.statusCode = statusCode;
+        }
+
+        public Integer getStatusCode() {
+            return statusCode;
+        }
+
+        /**
+         * Whether the provider rejected the request because of load (rate limited or a server
+         * error) rather than because of the request itself, so sending it again later may succeed.
+         */
+        public boolean isRetryable() {
+            return statusCode != null && (statusCode == 429 || statusCode >= 500);
         }
     }
 }
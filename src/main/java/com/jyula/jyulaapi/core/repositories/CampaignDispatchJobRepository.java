@@ -0,0 +1,29 @@
+package com.jyula.jyulaapi.core.repositories;
+
+import com.jyula.jyulaapi.core.entities.CampaignDispatchJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CampaignDispatchJobRepository extends JpaRepository<CampaignDispatchJob, Long> {
+    /**
+     * Locks up to {@code limit} claimable jobs for the current transaction: pending ones, and
+     * running ones whose node stopped sending heartbeats before {@code staleBefore}. Rows already
+     * locked by another node are skipped, so several instances can poll the same table without
+     * claiming the same job twice.
+     */
+    @Query(value = "select * from campaign_dispatch_jobs where status = 'PENDING' "
+            + "or (status = 'RUNNING' and heartbeat_at < ?2) "
+            + "order by id limit ?1 for update skip locked", nativeQuery = true)
+    List<CampaignDispatchJob> lockClaimable(int limit, LocalDateTime staleBefore);
+
+    @Modifying
+    @Query("update CampaignDispatchJob j set j.heartbeatAt = ?2 where j.id in ?1")
+    int heartbeat(Collection<Long> jobIds, LocalDateTime now);
+}
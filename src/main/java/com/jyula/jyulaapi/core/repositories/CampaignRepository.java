@@ -3,8 +3,29 @@ package com.jyula.jyulaapi.core.repositories;
 import com.jyula.jyulaapi.core.enterprise.CustomQuerydslPredicateExecutor;
 import com.jyula.jyulaapi.core.entities.Campaign;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import javax.transaction.Transactional;
+import java.util.Optional;
+
 @Repository
 public interface CampaignRepository extends JpaRepository<Campaign, Long>, CustomQuerydslPredicateExecutor<Campaign> {
+    /**
+     * Loads the campaign with its template content and body, for use outside a persistence
+     * context.
+     */
+    @Query("select c from Campaign c left join fetch c.templateContent t left join fetch t.body where c.id = ?1")
+    Optional<Campaign> findForDelivery(Long campaignId);
+
+    /**
+     * Moves the delivery cursor forward to {@code cursor}, the highest contact id whose results
+     * are recorded. The cursor never moves back, whatever order the calls arrive in.
+     */
+    @Transactional
+    @Modifying
+    @Query("update Campaign c set c.deliveryCursor = ?2 where c.id = ?1 "
+            + "and (c.deliveryCursor is null or c.deliveryCursor < ?2)")
+    int advanceDeliveryCursor(Long campaignId, Long cursor);
 }
@@ -0,0 +1,173 @@
+package com.jyula.jyulaapi.core.repositories;
+
+import com.jyula.jyulaapi.core.enterprise.ContactImportReader;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * Bulk-loads imported contacts in one transaction: rows are streamed with {@code COPY} into a
+ * temporary staging table and merged into {@code contacts} with a single upsert on the unique
+ * {@code email}. Nothing is buffered beyond one COPY chunk, whatever the size of the upload.
+ * Emails must arrive normalized by {@code Contact#normalizeEmail}, so spellings differing only in
+ * case merge into one contact.
+ *
+ * <p>When an email appears more than once in the same import the last occurrence wins; the earlier
+ * ones are reported as duplicates. Existing contacts are only touched when their name changes.
+ */
+@Repository
+public class ContactImportWriter {
+    private static final int COPY_CHUNK_BYTES = 64 * 1024;
+
+    private static final String CREATE_STAGING_SQL = "create temporary table contact_import "
+            + "(line bigint, email varchar(255), name varchar(255)) on commit drop";
+
+    private static final String COPY_SQL = "copy contact_import (line, email, name) from stdin with (format csv)";
+
+    private static final String DUPLICATES_SQL = "select count(*) - count(distinct email) from contact_import";
+
+    private static final String MERGE_SQL = "with merged as ("
+            + "insert into contacts (email, name, created_at, updated_at) "
+            + "select distinct on (email) email, name, ?, ? from contact_import order by email, line desc "
+            + "on conflict (email) do update set name = excluded.name, updated_at = excluded.updated_at "
+            + "where contacts.name is distinct from excluded.name "
+            + "returning (xmax = 0) as inserted) "
+            + "select count(*) filter (where inserted), count(*) filter (where not inserted) from merged";
+
+    private final SessionFactory sessionFactory;
+
+    public ContactImportWriter(EntityManagerFactory entityManagerFactory) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    }
+
+    /**
+     * Stages every row {@code source} yields until it returns {@code null}, then merges them. Either
+     * all rows are merged or, if reading or writing fails, none are.
+     */
+    public Result importContacts(RowSource source) {
+        StatelessSession session = sessionFactory.openStatelessSession();
+
+        try {
+            Transaction transaction = session.beginTransaction();
+
+            try {
+                Result result = session.doReturningWork(connection -> merge(connection, source));
+                transaction.commit();
+                return result;
+            } catch (RuntimeException ex) {
+                transaction.rollback();
+                throw ex;
+            }
+        } finally {
+            session.close();
+        }
+    }
+
+    private static Result merge(Connection connection, RowSource source) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_STAGING_SQL);
+        }
+
+        long staged = copy(connection, source);
+
+        if (staged == 0) {
+            return new Result(0, 0, 0, 0);
+        }
+
+        long duplicates;
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery(DUPLICATES_SQL)) {
+            rows.next();
+            duplicates = rows.getLong(1);
+        }
+
+        try (PreparedStatement statement = connection.prepareStatement(MERGE_SQL)) {
+            LocalDateTime now = LocalDateTime.now();
+            Calendar utc = Calendar.getInstance(TimeZone.getTimeZone(ZoneOffset.UTC));
+            statement.setTimestamp(1, Timestamp.valueOf(now), utc);
+            statement.setTimestamp(2, Timestamp.valueOf(now), utc);
+
+            try (ResultSet rows = statement.executeQuery()) {
+                rows.next();
+                return new Result(staged, rows.getLong(1), rows.getLong(2), duplicates);
+            }
+        }
+    }
+
+    private static long copy(Connection connection, RowSource source) throws SQLException {
+        CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL);
+
+        try {
+            StringBuilder chunk = new StringBuilder(COPY_CHUNK_BYTES + 1024);
+            ContactImportReader.Row row;
+
+            while ((row = source.next()) != null) {
+                chunk.append(row.line()).append(',');
+                appendQuoted(chunk, row.email());
+                chunk.append(',');
+                appendQuoted(chunk, row.name());
+                chunk.append('\n');
+
+                if (chunk.length() >= COPY_CHUNK_BYTES) {
+                    write(copyIn, chunk);
+                }
+            }
+
+            write(copyIn, chunk);
+            return copyIn.endCopy();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    private static void write(CopyIn copyIn, StringBuilder chunk) throws SQLException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        byte[] bytes = chunk.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        chunk.setLength(0);
+    }
+
+    private static void appendQuoted(StringBuilder chunk, String value) {
+        chunk.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    /**
+     * Pull-based source of valid rows; returns {@code null} when there are no more.
+     */
+    @FunctionalInterface
+    public interface RowSource {
+        ContactImportReader.Row next() throws IOException;
+    }
+
+    /**
+     * {@code staged} rows were loaded; {@code inserted} and {@code updated} contacts changed and the
+     * rest were duplicates within the import or already up to date.
+     */
+    public record Result(long staged, long inserted, long updated, long duplicates) {
+    }
+}
@@ -3,11 +3,50 @@ package com.jyula.jyulaapi.core.repositories;
 import com.jyula.jyulaapi.core.enterprise.CustomQuerydslPredicateExecutor;
 import com.jyula.jyulaapi.core.entities.Contact;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ContactRepository extends JpaRepository<Contact, Long>, CustomQuerydslPredicateExecutor<Contact> {
     Optional<Contact> findByEmail(String email);
+
+    /**
+     * Case-insensitive lookup of many emails at once, served by the {@code lower(email)} index
+     * created by {@code SchemaInitializer}. {@code normalizedEmails} must already be trimmed
+     * and lower-cased; callers chunk them to keep the {@code IN} list bounded.
+     */
+    @Query("select c from Contact c where lower(c.email) in ?1")
+    List<Contact> findByEmailIn(Collection<String> normalizedEmails);
+
+    /**
+     * Returns the next {@code limit} distinct recipients of a campaign with an id greater than
+     * {@code afterId}, ordered by id. Direct contacts and members of the campaign's segments are
+     * merged and de-duplicated by the database; each branch is limited before the union so a page
+     * only reads the rows it returns.
+     */
+    @Query(value = "select c.id as id, c.email as email, c.name as name from contacts c "
+            + "join ("
+            + "  select contact_id from ("
+            + "    select cc.contact_id from campaigns_contacts cc "
+            + "    where cc.campaign_id = ?1 and cc.contact_id > ?2 order by cc.contact_id limit ?3) direct "
+            + "  union "
+            + "  select contact_id from ("
+            + "    select distinct sc.contact_id from segments_contacts sc "
+            + "    join campaigns_segments cs on cs.segment_id = sc.segment_id "
+            + "    where cs.campaign_id = ?1 and sc.contact_id > ?2 order by sc.contact_id limit ?3) segmented"
+            + ") recipients on recipients.contact_id = c.id "
+            + "order by c.id limit ?3", nativeQuery = true)
+    List<Recipient> findCampaignRecipients(Long campaignId, Long afterId, int limit);
+
+    interface Recipient {
+        Long getId();
+
+        String getEmail();
+
+        String getName();
+    }
 }
@@ -0,0 +1,39 @@
+package com.jyula.jyulaapi.core.repositories;
+
+import com.jyula.jyulaapi.core.entities.SegmentBitmap;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SegmentBitmapRepository extends JpaRepository<SegmentBitmap, Long> {
+    List<SegmentBitmap> findBySegmentIdIn(Collection<Long> segmentIds);
+
+    /**
+     * Locks the bitmap row so concurrent membership writes to the same segment apply their
+     * changes one after the other instead of overwriting each other.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from SegmentBitmap b where b.segmentId = ?1")
+    Optional<SegmentBitmap> findForUpdate(Long segmentId);
+
+    /**
+     * Stores the bitmap of a segment that has none yet. Two transactions building it at the same
+     * time both succeed and the first one's row is kept; both computed it from the same rows.
+     */
+    @Modifying
+    @Query(value = "insert into segment_bitmaps (segment_id, data, cardinality, created_at, updated_at) "
+            + "values (?1, ?2, ?3, now(), now()) on conflict (segment_id) do nothing", nativeQuery = true)
+    void insertIfAbsent(Long segmentId, byte[] data, long cardinality);
+
+    @Modifying
+    @Query("delete from SegmentBitmap b where b.segmentId = ?1")
+    void deleteBySegmentId(Long segmentId);
+}
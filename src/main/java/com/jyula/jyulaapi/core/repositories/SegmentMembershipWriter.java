@@ -0,0 +1,118 @@
+package com.jyula.jyulaapi.core.repositories;
+
+import com.jyula.jyulaapi.core.enterprise.SegmentExpression;
+import com.jyula.jyulaapi.core.entities.Segment;
+import org.hibernate.Session;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Changes {@code segments_contacts} with one set-based statement per call instead of through
+ * {@link Segment#getContacts()}, so adding or removing members never loads the existing ones and
+ * costs the same for a segment of ten contacts as for one of a million.
+ *
+ * <p>Statements run on the connection of the caller's transaction. The segment's pending changes
+ * are flushed first and the segment is refreshed afterwards, so its {@code contacts} collection is
+ * read again, with the change, the next time it is used.
+ */
+@Repository
+public class SegmentMembershipWriter {
+    private static final String ADD_SQL = "insert into segments_contacts (segment_id, contact_id) "
+            + "select ?, contact_id from unnest(?) as contact_id "
+            + "on conflict do nothing returning contact_id";
+
+    private static final String ADD_COMPOSED_SQL = "insert into segments_contacts (segment_id, contact_id) "
+            + "select ?, contact_id from (%s) as composed on conflict do nothing";
+
+    private static final String REMOVE_SQL = "delete from segments_contacts "
+            + "where segment_id = ? and contact_id = any(?) returning contact_id";
+
+    private final EntityManager entityManager;
+
+    public SegmentMembershipWriter(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Adds {@code contactIds} to the segment and returns the ones that were not members yet.
+     */
+    public List<Long> add(Segment segment, Collection<Long> contactIds) {
+        return execute(segment, ADD_SQL, contactIds);
+    }
+
+    /**
+     * Removes {@code contactIds} from the segment and returns the ones that were members.
+     */
+    public List<Long> remove(Segment segment, Collection<Long> contactIds) {
+        return execute(segment, REMOVE_SQL, contactIds);
+    }
+
+    /**
+     * Adds every contact selected by {@code expression} to the segment with one
+     * {@code INSERT ... SELECT}, so the members never leave the database, and returns how many were
+     * added.
+     */
+    public int addComposed(Segment segment, SegmentExpression expression) {
+        List<Object> parameters = new ArrayList<>();
+        parameters.add(segment.getId());
+        String sql = String.format(ADD_COMPOSED_SQL, expression.toSql(parameters));
+
+        return execute(segment, sql, (connection, statement) -> {
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setObject(i + 1, parameters.get(i));
+            }
+
+            return statement.executeUpdate();
+        });
+    }
+
+    private List<Long> execute(Segment segment, String sql, Collection<Long> contactIds) {
+        if (contactIds.isEmpty()) {
+            return List.of();
+        }
+
+        return execute(segment, sql, (connection, statement) -> {
+            statement.setLong(1, segment.getId());
+            statement.setArray(2, connection.createArrayOf("bigint", contactIds.toArray()));
+
+            return readIds(statement);
+        });
+    }
+
+    private <R> R execute(Segment segment, String sql, Statement<R> work) {
+        entityManager.flush();
+
+        R result = entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                return work.run(connection, statement);
+            }
+        });
+
+        entityManager.refresh(segment);
+        return result;
+    }
+
+    private static List<Long> readIds(PreparedStatement statement) throws SQLException {
+        List<Long> ids = new ArrayList<>();
+
+        try (ResultSet rows = statement.executeQuery()) {
+            while (rows.next()) {
+                ids.add(rows.getLong(1));
+            }
+        }
+
+        return ids;
+    }
+
+    private interface Statement<R> {
+        R run(Connection connection, PreparedStatement statement) throws SQLException;
+    }
+}
@@ -3,8 +3,47 @@ package com.jyula.jyulaapi.core.repositories;
 import com.jyula.jyulaapi.core.enterprise.CustomQuerydslPredicateExecutor;
 import com.jyula.jyulaapi.core.entities.Segment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface SegmentRepository extends JpaRepository<Segment, Long>, CustomQuerydslPredicateExecutor<Segment> {
+    /**
+     * Loads the segment locked, so membership writes to one segment run one after the other and
+     * each sees the members the previous one left.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from Segment s where s.id = ?1")
+    Optional<Segment> findForUpdate(Long id);
+
+    /**
+     * Loads the segments share-locked, so their members cannot change until the transaction ends
+     * while other readers still get through.
+     */
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("select s from Segment s where s.id in ?1")
+    List<Segment> findAllForShare(Collection<Long> ids);
+
+    @Query("select c.id from Segment s join s.contacts c where s.id = ?1")
+    List<Long> findMemberIds(Long segmentId);
+
+    /**
+     * Member counts of many segments in one grouped query over {@code segments_contacts}.
+     * Segments without members are missing from the result.
+     */
+    @Query("select s.id as segmentId, count(c.id) as contacts from Segment s join s.contacts c "
+            + "where s.id in ?1 group by s.id")
+    List<MemberCount> countMembers(Collection<Long> segmentIds);
+
+    interface MemberCount {
+        Long getSegmentId();
+
+        Long getContacts();
+    }
 }
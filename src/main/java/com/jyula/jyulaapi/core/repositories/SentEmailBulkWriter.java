@@ -0,0 +1,266 @@
+package com.jyula.jyulaapi.core.repositories;
+
+import com.jyula.jyulaapi.core.entities.SentEmail;
+import com.jyula.jyulaapi.core.providers.MailSenderProvider;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManagerFactory;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Writes {@link SentEmail} rows for a delivery chunk without going through the persistence
+ * context. Every call opens its own {@link StatelessSession} and commits before returning, so
+ * nothing is retained between chunks no matter how many recipients a campaign has.
+ *
+ * <p>{@code next_attempt_at} says when a row has to be looked at again: the end of the processing
+ * lease for PROCESSING rows, the backoff deadline for retryable FAILED rows and {@code null} once a
+ * row is SENT or out of attempts. The retry sweep only ever scans that column.
+ */
+@Repository
+public class SentEmailBulkWriter {
+    private static final String INSERT_SQL = "insert into sent_emails "
+            + "(status, campaign_id, contact_id, attempts, next_attempt_at, created_at, updated_at) "
+            + "select 'PROCESSING', ?, contact_id, 1, ?, ?, ? from unnest(?) as contact_id "
+            + "on conflict (campaign_id, contact_id) do nothing "
+            + "returning id, contact_id";
+
+    private static final String MARK_SENT_SQL = "update sent_emails "
+            + "set status = 'SENT', next_attempt_at = null, updated_at = ? where id = any(?)";
+
+    private static final String MARK_FAILED_SQL = "update sent_emails "
+            + "set status = 'FAILED', updated_at = ?, next_attempt_at = case when attempts >= ? then null "
+            + "else cast(? as timestamp) + make_interval(0, 0, 0, 0, 0, 0, "
+            + "least(?, ? * power(2, attempts - 1)) * (0.5 + random() / 2)) end "
+            + "where id = any(?)";
+
+    private static final String FAIL_EXHAUSTED_SQL = "update sent_emails "
+            + "set status = 'FAILED', next_attempt_at = null, updated_at = ? "
+            + "where next_attempt_at <= ? and attempts >= ?";
+
+    private static final String RENEW_LEASES_SQL = "update sent_emails set next_attempt_at = ? "
+            + "where id = any(?) and status = 'PROCESSING'";
+
+    private static final String CLAIM_DUE_SQL = "with due as ("
+            + "select id from sent_emails where next_attempt_at <= ? and attempts < ? "
+            + "order by next_attempt_at limit ? for update skip locked) "
+            + "update sent_emails s set status = 'PROCESSING', attempts = s.attempts + 1, "
+            + "next_attempt_at = ?, updated_at = ? "
+            + "from due, contacts c, campaigns cp, "
+            + "template_contents t left join template_bodies b on b.id = t.body_id "
+            + "where s.id = due.id and c.id = s.contact_id and cp.id = s.campaign_id "
+            + "and t.id = cp.template_content_id "
+            + "returning s.id, c.email, c.name, t.template_id, t.version, t.about, t.content, "
+            + "coalesce(b.compiled_data, b.data), b.plain_text_data";
+
+    private final SessionFactory sessionFactory;
+    private final int maxAttempts;
+    private final long baseDelaySeconds;
+    private final long maxDelaySeconds;
+    private final long processingLeaseSeconds;
+
+    public SentEmailBulkWriter(EntityManagerFactory entityManagerFactory,
+                               @Value("${app.retry.maxAttempts}") int maxAttempts,
+                               @Value("${app.retry.baseDelaySeconds}") long baseDelaySeconds,
+                               @Value("${app.retry.maxDelaySeconds}") long maxDelaySeconds,
+                               @Value("${app.retry.processingLeaseSeconds}") long processingLeaseSeconds) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.maxAttempts = maxAttempts;
+        this.baseDelaySeconds = baseDelaySeconds;
+        this.maxDelaySeconds = maxDelaySeconds;
+        this.processingLeaseSeconds = processingLeaseSeconds;
+    }
+
+    /**
+     * Inserts one PROCESSING row per contact in a single statement and returns the generated ids
+     * keyed by contact id. Contacts that already have a row for this campaign are left untouched
+     * and are missing from the result: whoever created that row owns it, and if that node died the
+     * retry sweep picks the row up once its lease runs out. Delivering the same recipients twice
+     * therefore never sends twice.
+     */
+    public Map<Long, Long> insertProcessing(Long campaignId, List<Long> contactIds) {
+        if (contactIds.isEmpty()) {
+            return Map.of();
+        }
+
+        return inTransaction(connection -> {
+            LocalDateTime now = LocalDateTime.now();
+
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+                statement.setLong(1, campaignId);
+                setTimestamp(statement, 2, now.plusSeconds(processingLeaseSeconds));
+                setTimestamp(statement, 3, now);
+                setTimestamp(statement, 4, now);
+                statement.setArray(5, idArray(connection, contactIds));
+
+                Map<Long, Long> ids = new HashMap<>();
+                try (ResultSet rows = statement.executeQuery()) {
+                    while (rows.next()) {
+                        ids.put(rows.getLong(2), rows.getLong(1));
+                    }
+                }
+                return ids;
+            }
+        });
+    }
+
+    /**
+     * Applies the outcome of a provider batch to the rows returned by {@link #insertProcessing} or
+     * {@link #claimDue}, with one set-based update per resulting status. Failed rows get an
+     * exponential backoff with jitter, or no further attempt once {@code app.retry.maxAttempts}
+     * is reached.
+     */
+    public void applyResults(List<Long> sentEmailIds, List<MailSenderProvider.SendMailResult> results) {
+        List<Long> sent = new ArrayList<>();
+        List<Long> failed = new ArrayList<>();
+
+        for (int i = 0; i < sentEmailIds.size(); i++) {
+            (results.get(i).isSent() ? sent : failed).add(sentEmailIds.get(i));
+        }
+
+        inTransaction(connection -> {
+            LocalDateTime now = LocalDateTime.now();
+
+            if (!sent.isEmpty()) {
+                try (PreparedStatement statement = connection.prepareStatement(MARK_SENT_SQL)) {
+                    setTimestamp(statement, 1, now);
+                    statement.setArray(2, idArray(connection, sent));
+                    statement.executeUpdate();
+                }
+            }
+
+            if (!failed.isEmpty()) {
+                try (PreparedStatement statement = connection.prepareStatement(MARK_FAILED_SQL)) {
+                    setTimestamp(statement, 1, now);
+                    statement.setInt(2, maxAttempts);
+                    setTimestamp(statement, 3, now);
+                    statement.setDouble(4, maxDelaySeconds);
+                    statement.setDouble(5, baseDelaySeconds);
+                    statement.setArray(6, idArray(connection, failed));
+                    statement.executeUpdate();
+                }
+            }
+
+            return null;
+        });
+    }
+
+    /**
+     * Pushes the lease of the given rows back to a full {@code app.retry.processingLeaseSeconds}
+     * from now. Rows that already have a result are left alone. Returns how many were renewed.
+     */
+    public int renewLeases(List<Long> sentEmailIds) {
+        return inTransaction(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(RENEW_LEASES_SQL)) {
+                setTimestamp(statement, 1, LocalDateTime.now().plusSeconds(processingLeaseSeconds));
+                statement.setArray(2, idArray(connection, sentEmailIds));
+                return statement.executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * Settles rows whose lease ran out while they were PROCESSING their last allowed attempt,
+     * because the node sending them died before recording a result. {@link #claimDue} never
+     * picks those up again, so they are marked FAILED for good. Returns how many were settled.
+     */
+    public int failExhausted() {
+        return inTransaction(connection -> {
+            LocalDateTime now = LocalDateTime.now();
+
+            try (PreparedStatement statement = connection.prepareStatement(FAIL_EXHAUSTED_SQL)) {
+                setTimestamp(statement, 1, now);
+                setTimestamp(statement, 2, now);
+                statement.setInt(3, maxAttempts);
+                return statement.executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * Locks up to {@code limit} rows whose {@code next_attempt_at} has passed, moves them back to
+     * PROCESSING under a new lease and returns what is needed to send them again.
+     */
+    public List<ClaimedEmail> claimDue(int limit) {
+        return inTransaction(connection -> {
+            LocalDateTime now = LocalDateTime.now();
+
+            try (PreparedStatement statement = connection.prepareStatement(CLAIM_DUE_SQL)) {
+                setTimestamp(statement, 1, now);
+                statement.setInt(2, maxAttempts);
+                statement.setInt(3, limit);
+                setTimestamp(statement, 4, now.plusSeconds(processingLeaseSeconds));
+                setTimestamp(statement, 5, now);
+
+                List<ClaimedEmail> claimed = new ArrayList<>();
+                try (ResultSet rows = statement.executeQuery()) {
+                    while (rows.next()) {
+                        claimed.add(new ClaimedEmail(rows.getLong(1), rows.getString(2), rows.getString(3),
+                                rows.getLong(4), rows.getInt(5), rows.getString(6), rows.getString(7),
+                                rows.getBytes(8), rows.getBytes(9)));
+                    }
+                }
+                return claimed;
+            }
+        });
+    }
+
+    private static Array idArray(Connection connection, List<Long> ids) throws SQLException {
+        return connection.createArrayOf("bigint", ids.toArray());
+    }
+
+    private static void setTimestamp(PreparedStatement statement, int index, LocalDateTime value)
+            throws SQLException {
+        // Same convention as hibernate.jdbc.time_zone=UTC, so raw and mapped writes agree.
+        statement.setTimestamp(index, Timestamp.valueOf(value), Calendar.getInstance(TimeZone.getTimeZone(ZoneOffset.UTC)));
+    }
+
+    private <R> R inTransaction(JdbcWork<R> work) {
+        StatelessSession session = sessionFactory.openStatelessSession();
+
+        try {
+            Transaction transaction = session.beginTransaction();
+
+            try {
+                R result = session.doReturningWork(work::execute);
+                transaction.commit();
+                return result;
+            } catch (RuntimeException ex) {
+                transaction.rollback();
+                throw ex;
+            }
+        } finally {
+            session.close();
+        }
+    }
+
+    @FunctionalInterface
+    private interface JdbcWork<R> {
+        R execute(Connection connection) throws SQLException;
+    }
+
+    /**
+     * {@code content} is the legacy inline body, {@code compressedBody} and
+     * {@code compressedPlainText} the shared preprocessed ones, still compressed.
+     */
+    public record ClaimedEmail(Long sentEmailId, String email, String name, Long templateId,
+                               Integer templateVersion, String subject, String content, byte[] compressedBody,
+                               byte[] compressedPlainText) {
+    }
+}
@@ -3,8 +3,19 @@ package com.jyula.jyulaapi.core.repositories;
 import com.jyula.jyulaapi.core.enterprise.CustomQuerydslPredicateExecutor;
 import com.jyula.jyulaapi.core.entities.SentEmail;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface SentEmailRepository extends JpaRepository<SentEmail, Long>, CustomQuerydslPredicateExecutor<SentEmail> {
+    @Query("select e.status as status, count(e) as count from SentEmail e where e.campaign.id = ?1 group by e.status")
+    List<StatusCount> countByStatus(Long campaignId);
+
+    interface StatusCount {
+        SentEmail.EmailStatus getStatus();
+
+        Long getCount();
+    }
 }
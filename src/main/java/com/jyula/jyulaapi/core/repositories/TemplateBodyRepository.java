@@ -0,0 +1,24 @@
+package com.jyula.jyulaapi.core.repositories;
+
+import com.jyula.jyulaapi.core.entities.TemplateBody;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface TemplateBodyRepository extends JpaRepository<TemplateBody, Long> {
+    Optional<TemplateBody> findByHash(String hash);
+
+    /**
+     * Stores a body unless one with the same hash exists. Two templates saving the same body at the
+     * same time both succeed and end up sharing one row.
+     */
+    @Modifying
+    @Query(value = "insert into template_bodies "
+            + "(hash, data, size, compiled_data, compiled_size, plain_text_data, created_at, updated_at) "
+            + "values (?1, ?2, ?3, ?4, ?5, ?6, now(), now()) on conflict (hash) do nothing", nativeQuery = true)
+    void insertIfAbsent(String hash, byte[] data, int size, byte[] compiledData, int compiledSize, byte[] plainTextData);
+}
@@ -2,22 +2,53 @@ package com.jyula.jyulaapi.core.repositories;
 
 import com.jyula.jyulaapi.core.enterprise.CustomQuerydslPredicateExecutor;
 import com.jyula.jyulaapi.core.entities.TemplateContent;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+
 @Repository
 public interface TemplateContentRepository extends JpaRepository<TemplateContent, Long>, CustomQuerydslPredicateExecutor<TemplateContent> {
     @Modifying
     @Query("update TemplateContent t set t.isLatest = false where t.isLatest = true and t.template.id = ?1")
     void unsetOldLatest(Long templateId);
 
-    @Query("select t from TemplateContent t where t.template.id = ?1 and t.isLatest = true")
+    @Query("select t from TemplateContent t left join fetch t.body where t.template.id = ?1 and t.isLatest = true")
     TemplateContent findLatest(Long templateId);
 
-    @Query("select t from TemplateContent t where t.template.id = ?1 and t.version = ?2")
+    @Query("select t from TemplateContent t left join fetch t.body where t.template.id = ?1 and t.version = ?2")
     TemplateContent findByVersion(Long templateId, Long version);
 
     Long countByTemplateId(Long templateId);
+
+    /**
+     * Lists a template's versions newest first without reading any body: sizes come from the
+     * body row, or from the UTF-8 byte length of the legacy inline content.
+     */
+    @Query(value = "select t.version as version, t.about as about, t.isLatest as latest, "
+            + "coalesce(b.size, octet_length(t.content)) as size, b.compiledSize as compiledSize, "
+            + "t.createdAt as createdAt, t.updatedAt as updatedAt "
+            + "from TemplateContent t left join t.body b where t.template.id = ?1 order by t.version desc",
+            countQuery = "select count(t) from TemplateContent t where t.template.id = ?1")
+    Page<VersionSummary> findVersions(Long templateId, Pageable pageable);
+
+    interface VersionSummary {
+        Integer getVersion();
+
+        String getAbout();
+
+        boolean isLatest();
+
+        Integer getSize();
+
+        Integer getCompiledSize();
+
+        LocalDateTime getCreatedAt();
+
+        LocalDateTime getUpdatedAt();
+    }
 }
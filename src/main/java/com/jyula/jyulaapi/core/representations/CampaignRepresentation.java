@@ -1,6 +1,7 @@
 package com.jyula.jyulaapi.core.representations;
 
 import com.jyula.jyulaapi.core.entities.Campaign;
+import com.jyula.jyulaapi.core.services.CampaignProgressTracker;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -9,6 +10,7 @@ import org.modelmapper.ModelMapper;
 
 import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -37,6 +39,39 @@ public interface CampaignRepresentation {
         }
     }
 
+    @Builder
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    class CampaignAcceptedResponse {
+        private Long campaignId;
+        private Long audienceSize;
+    }
+
+    @Builder
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    class CampaignProgressResponse {
+        private Long campaignId;
+        private long queued;
+        private long sent;
+        private long failed;
+        private double ratePerSecond;
+        private boolean finished;
+
+        public static CampaignProgressResponse from(CampaignProgressTracker.Progress progress) {
+            return CampaignProgressResponse.builder()
+                    .campaignId(progress.campaignId())
+                    .queued(progress.queued())
+                    .sent(progress.sent())
+                    .failed(progress.failed())
+                    .ratePerSecond(progress.ratePerSecond())
+                    .finished(progress.finished())
+                    .build();
+        }
+    }
+
     @Builder
     @Data
     @NoArgsConstructor
@@ -46,13 +81,19 @@ public interface CampaignRepresentation {
         private String name;
         private Set<ContactRepresentation.ContactResponse> contacts;
         private Set<SegmentRepresentation.SegmentResponse> segments;
-        public static CampaignResponse from(ModelMapper mapper, Campaign campaign) {
+        private Long audienceSize;
+
+        /**
+         * {@code segmentMemberCounts} maps the campaign's segment ids to their member counts.
+         */
+        public static CampaignResponse from(ModelMapper mapper, Campaign campaign,
+                                            Map<Long, Long> segmentMemberCounts) {
             Set<ContactRepresentation.ContactResponse> contacts = campaign.getContacts().stream()
                     .map((contact -> ContactRepresentation.ContactResponse.from(mapper, contact)))
                     .collect(Collectors.toSet());
 
             Set<SegmentRepresentation.SegmentResponse> segments = campaign.getSegments().stream()
-                    .map((segment -> SegmentRepresentation.SegmentResponse.from(mapper, segment)))
+                    .map((segment -> SegmentRepresentation.SegmentResponse.from(segment, segmentMemberCounts)))
                     .collect(Collectors.toSet());
 
             return CampaignResponse.builder()
@@ -60,6 +101,7 @@ public interface CampaignRepresentation {
                     .name(campaign.getName())
                     .contacts(contacts)
                     .segments(segments)
+                    .audienceSize(campaign.getAudienceSize())
                     .build();
         }
     }
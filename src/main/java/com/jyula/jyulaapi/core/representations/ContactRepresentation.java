@@ -1,6 +1,7 @@
 package com.jyula.jyulaapi.core.representations;
 
 import com.jyula.jyulaapi.core.entities.Contact;
+import com.jyula.jyulaapi.core.services.ContactService;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -10,6 +11,7 @@ import org.modelmapper.ModelMapper;
 import javax.validation.constraints.Email;
 import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
+import java.util.List;
 
 public interface ContactRepresentation {
     @Builder
@@ -40,4 +42,28 @@ public interface ContactRepresentation {
             return mapper.map(contact, ContactResponse.class);
         }
     }
+
+    @Builder
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    class ContactImportResponse {
+        private long inserted;
+        private long updated;
+        private long unchanged;
+        private long duplicates;
+        private long rejected;
+        private List<ContactService.Rejection> rejections;
+
+        public static ContactImportResponse from(ContactService.ImportResult result) {
+            return ContactImportResponse.builder()
+                    .inserted(result.inserted())
+                    .updated(result.updated())
+                    .unchanged(result.unchanged())
+                    .duplicates(result.duplicates())
+                    .rejected(result.rejected())
+                    .rejections(result.rejections())
+                    .build();
+        }
+    }
 }
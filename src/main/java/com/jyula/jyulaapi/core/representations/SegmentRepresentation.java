@@ -1,16 +1,19 @@
 package com.jyula.jyulaapi.core.representations;
 
+import com.jyula.jyulaapi.core.enterprise.BussinessException;
+import com.jyula.jyulaapi.core.enterprise.SegmentExpression;
 import com.jyula.jyulaapi.core.entities.Segment;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.modelmapper.ModelMapper;
 
+import javax.validation.Valid;
 import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 public interface SegmentRepresentation {
     @Builder
@@ -34,6 +37,82 @@ public interface SegmentRepresentation {
         private Set<String> contacts;
     }
 
+    @Builder
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    class RemoveContactsFromSegment {
+        private Set<String> contacts;
+    }
+
+    @Builder
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    class ComposeSegment {
+        @NotEmpty(message = "name cannot be empty")
+        @NotNull(message = "name cannot be null")
+        private String name;
+
+        private String username;
+
+        @Valid
+        @NotNull(message = "expression cannot be null")
+        private Expression expression;
+    }
+
+    /**
+     * Either a {@code segment} id or an {@code operator} ({@code union}, {@code intersect} or
+     * {@code exclude}) applied to two or more {@code operands}, e.g.
+     * {@code {"operator": "exclude", "operands": [{"segment": 1}, {"segment": 2}]}}.
+     */
+    @Builder
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    class Expression {
+        private Long segment;
+        private String operator;
+        private List<Expression> operands;
+
+        public SegmentExpression toSegmentExpression() {
+            return toSegmentExpression(1);
+        }
+
+        private SegmentExpression toSegmentExpression(int depth) {
+            if (depth > SegmentExpression.MAX_DEPTH) {
+                throw new BussinessException("expression cannot be nested deeper than " + SegmentExpression.MAX_DEPTH);
+            }
+
+            if ((segment == null) == (operator == null)) {
+                throw new BussinessException("expression must have either a segment or an operator");
+            }
+
+            if (segment != null) {
+                return SegmentExpression.members(segment);
+            }
+
+            if (operands != null && operands.contains(null)) {
+                throw new BussinessException("operands cannot contain null");
+            }
+
+            List<SegmentExpression> children = operands == null ? List.of() : operands.stream()
+                    .map(operand -> operand.toSegmentExpression(depth + 1))
+                    .toList();
+
+            return SegmentExpression.operation(operator, children);
+        }
+    }
+
+    @Builder
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    class AudienceResponse {
+        private Set<Long> segments;
+        private Long contacts;
+    }
+
     @Builder
     @Data
     @NoArgsConstructor
@@ -41,17 +120,17 @@ public interface SegmentRepresentation {
     class SegmentResponse {
         private Long segmentId;
         private String name;
-        private Set<ContactRepresentation.ContactResponse> contacts;
-
-        public static SegmentResponse from(ModelMapper mapper, Segment segment) {
-            Set<ContactRepresentation.ContactResponse> contacts = segment.getContacts().stream()
-                    .map((contact -> ContactRepresentation.ContactResponse.from(mapper, contact)))
-                    .collect(Collectors.toSet());
+        private Long contactCount;
 
+        /**
+         * {@code contactCounts} maps segment ids to member counts, as returned by
+         * {@code SegmentService#countMembers}; segments missing from it have no members.
+         */
+        public static SegmentResponse from(Segment segment, Map<Long, Long> contactCounts) {
             return SegmentResponse.builder()
                     .segmentId(segment.getId())
                     .name(segment.getName())
-                    .contacts(contacts)
+                    .contactCount(contactCounts.getOrDefault(segment.getId(), 0L))
                     .build();
         }
     }
@@ -2,6 +2,7 @@ package com.jyula.jyulaapi.core.representations;
 
 import com.jyula.jyulaapi.core.entities.Template;
 import com.jyula.jyulaapi.core.entities.TemplateContent;
+import com.jyula.jyulaapi.core.repositories.TemplateContentRepository;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -10,6 +11,7 @@ import org.modelmapper.ModelMapper;
 
 import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
+import java.time.LocalDateTime;
 
 public interface TemplateRepresentation {
     @Builder
@@ -62,4 +64,30 @@ public interface TemplateRepresentation {
             return mapper.map(templateContent, TemplateContentResponse.class);
         }
     }
+
+    @Builder
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    class TemplateVersionResponse {
+        private Integer version;
+        private String about;
+        private boolean isLatest;
+        private Integer size;
+        private Integer compiledSize;
+        private LocalDateTime createdAt;
+        private LocalDateTime updatedAt;
+
+        public static TemplateVersionResponse from(TemplateContentRepository.VersionSummary summary) {
+            return TemplateVersionResponse.builder()
+                    .version(summary.getVersion())
+                    .about(summary.getAbout())
+                    .isLatest(summary.isLatest())
+                    .size(summary.getSize())
+                    .compiledSize(summary.getCompiledSize())
+                    .createdAt(summary.getCreatedAt())
+                    .updatedAt(summary.getUpdatedAt())
+                    .build();
+        }
+    }
 }
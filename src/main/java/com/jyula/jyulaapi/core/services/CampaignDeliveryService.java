@@ -0,0 +1,168 @@
+package com.jyula.jyulaapi.core.services;
+
+import com.jyula.jyulaapi.core.enterprise.BussinessException;
+import com.jyula.jyulaapi.core.entities.Campaign;
+import com.jyula.jyulaapi.core.entities.SentEmail;
+import com.jyula.jyulaapi.core.providers.MailSenderProvider;
+import com.jyula.jyulaapi.core.repositories.CampaignRepository;
+import com.jyula.jyulaapi.core.repositories.ContactRepository;
+import com.jyula.jyulaapi.core.repositories.SentEmailBulkWriter;
+import com.jyula.jyulaapi.core.repositories.SentEmailRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+@Service
+public class CampaignDeliveryService {
+    public static final String FROM = "onboarding@resend.dev";
+
+    private final MailDispatcher mailDispatcher;
+    private final CampaignRepository campaignRepository;
+    private final ContactRepository contactRepository;
+    private final SentEmailBulkWriter sentEmailWriter;
+    private final SentEmailRepository sentEmailRepository;
+    private final SentEmailLeaseKeeper leaseKeeper;
+    private final CampaignProgressTracker progressTracker;
+    private final TemplateRenderer templateRenderer;
+    private final int chunkSize;
+
+    public CampaignDeliveryService(MailDispatcher mailDispatcher,
+                                   CampaignRepository campaignRepository,
+                                   ContactRepository contactRepository,
+                                   SentEmailBulkWriter sentEmailWriter,
+                                   SentEmailRepository sentEmailRepository,
+                                   SentEmailLeaseKeeper leaseKeeper,
+                                   CampaignProgressTracker progressTracker,
+                                   TemplateRenderer templateRenderer,
+                                   @Value("${app.dispatch.chunkSize}") int chunkSize) {
+        this.mailDispatcher = mailDispatcher;
+        this.campaignRepository = campaignRepository;
+        this.contactRepository = contactRepository;
+        this.sentEmailWriter = sentEmailWriter;
+        this.sentEmailRepository = sentEmailRepository;
+        this.leaseKeeper = leaseKeeper;
+        this.progressTracker = progressTracker;
+        this.templateRenderer = templateRenderer;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Delivers the campaign to every recipient after its delivery cursor. The cursor only moves
+     * past a chunk once that chunk and every chunk before it have their results recorded, so a
+     * run that dies half way is resumed by calling this again, and recipients that already have a
+     * row are skipped instead of sent twice.
+     */
+    public void deliver(Long campaignId) {
+        deliver(campaignId, () -> {
+        });
+    }
+
+    /**
+     * Same as {@link #deliver(Long)}, calling {@code heartbeat} after every chunk so the caller can
+     * prove the run is still alive however long the whole delivery takes.
+     */
+    public void deliver(Long campaignId, Runnable heartbeat) {
+        Campaign campaign = campaignRepository.findForDelivery(campaignId)
+                .orElseThrow(() -> new BussinessException("Campaign with id = " + campaignId + " not found"));
+
+        TemplateRenderer.Compiled template = templateRenderer.compiled(campaign.getTemplateContent());
+        Deque<PendingChunk> pending = new ArrayDeque<>();
+        startProgress(campaignId);
+
+        try {
+            Long afterId = campaign.getDeliveryCursor() != null ? campaign.getDeliveryCursor() : 0L;
+            List<ContactRepository.Recipient> recipients = contactRepository.findCampaignRecipients(
+                    campaignId, afterId, chunkSize);
+
+            while (!recipients.isEmpty()) {
+                afterId = recipients.get(recipients.size() - 1).getId();
+                pending.add(new PendingChunk(afterId, deliverChunk(campaign, template, recipients)));
+                advanceCursor(campaignId, pending, false);
+                heartbeat.run();
+
+                recipients = contactRepository.findCampaignRecipients(campaignId, afterId, chunkSize);
+            }
+
+            advanceCursor(campaignId, pending, true);
+        } finally {
+            progressTracker.finished(campaignId);
+        }
+    }
+
+    // A resumed delivery skips recipients an earlier run already settled, so their outcomes are
+    // read back instead of being counted again.
+    private void startProgress(Long campaignId) {
+        long sent = 0;
+        long failed = 0;
+
+        for (SentEmailRepository.StatusCount count : sentEmailRepository.countByStatus(campaignId)) {
+            if (count.getStatus() == SentEmail.EmailStatus.SENT) {
+                sent = count.getCount();
+            } else if (count.getStatus() == SentEmail.EmailStatus.FAILED) {
+                failed = count.getCount();
+            }
+        }
+
+        progressTracker.started(campaignId, sent, failed);
+    }
+
+    private CompletableFuture<Void> deliverChunk(Campaign campaign, TemplateRenderer.Compiled template,
+                                                 List<ContactRepository.Recipient> chunk) {
+        Map<Long, Long> sentEmailIds = sentEmailWriter.insertProcessing(
+                campaign.getId(), chunk.stream().map(ContactRepository.Recipient::getId).toList());
+
+        List<ContactRepository.Recipient> fresh = chunk.stream()
+                .filter(recipient -> sentEmailIds.containsKey(recipient.getId()))
+                .toList();
+
+        if (fresh.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        List<MailSenderProvider.SendMailRequest> requests = fresh.stream()
+                .map(recipient -> MailSenderProvider.SendMailRequest.builder()
+                        .from(FROM)
+                        .to(recipient.getEmail())
+                        .personalization(template.personalize(recipient.getName(), recipient.getEmail()))
+                        .build())
+                .toList();
+
+        List<Long> ids = fresh.stream().map(recipient -> sentEmailIds.get(recipient.getId())).toList();
+        progressTracker.queued(campaign.getId(), requests.size());
+        leaseKeeper.hold(ids);
+
+        try {
+            return mailDispatcher.submit(requests)
+                    .thenAccept(results -> {
+                        sentEmailWriter.applyResults(ids, results);
+                        progressTracker.completed(campaign.getId(), results);
+                    })
+                    .whenComplete((ignored, error) -> leaseKeeper.release(ids));
+        } catch (RuntimeException ex) {
+            leaseKeeper.release(ids);
+            throw ex;
+        }
+    }
+
+    private void advanceCursor(Long campaignId, Deque<PendingChunk> pending, boolean wait) {
+        Long cursor = null;
+
+        while (!pending.isEmpty() && (wait || pending.peek().future().isDone())) {
+            PendingChunk chunk = pending.poll();
+            chunk.future().join();
+            cursor = chunk.lastContactId();
+        }
+
+        if (cursor != null) {
+            campaignRepository.advanceDeliveryCursor(campaignId, cursor);
+        }
+    }
+
+    private record PendingChunk(Long lastContactId, CompletableFuture<Void> future) {
+    }
+}
@@ -0,0 +1,120 @@
+package com.jyula.jyulaapi.core.services;
+
+import com.jyula.jyulaapi.core.providers.MailSenderProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory delivery counters per campaign, updated by the send path on this node. Writers only
+ * ever touch {@link LongAdder}s, so concurrent chunks never contend on a lock; readers sum them
+ * into a {@link Progress} snapshot. Finished deliveries are kept for
+ * {@code app.progress.retentionSeconds} and then dropped.
+ */
+@Component
+public class CampaignProgressTracker {
+    private final ConcurrentMap<Long, Counters> campaigns = new ConcurrentHashMap<>();
+    private final LongSupplier nanoClock;
+    private final long retentionNanos;
+
+    public CampaignProgressTracker(@Value("${app.progress.retentionSeconds}") long retentionSeconds) {
+        this(retentionSeconds, System::nanoTime);
+    }
+
+    CampaignProgressTracker(long retentionSeconds, LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        this.retentionNanos = Duration.ofSeconds(retentionSeconds).toNanos();
+    }
+
+    public void started(Long campaignId) {
+        started(campaignId, 0, 0);
+    }
+
+    /**
+     * Starts counting a delivery that resumes with {@code sent} and {@code failed} outcomes already
+     * recorded by an earlier run. They count as queued and towards the totals, but not towards the
+     * rate, which only covers this run.
+     */
+    public void started(Long campaignId, long sent, long failed) {
+        Counters counters = new Counters(nanoClock.getAsLong(), sent + failed);
+        counters.queued.add(sent + failed);
+        counters.sent.add(sent);
+        counters.failed.add(failed);
+        campaigns.put(campaignId, counters);
+    }
+
+    public void queued(Long campaignId, int count) {
+        counters(campaignId).queued.add(count);
+    }
+
+    public void completed(Long campaignId, List<MailSenderProvider.SendMailResult> results) {
+        Counters counters = counters(campaignId);
+        long sent = results.stream().filter(MailSenderProvider.SendMailResult::isSent).count();
+
+        counters.sent.add(sent);
+        counters.failed.add(results.size() - sent);
+    }
+
+    public void finished(Long campaignId) {
+        Counters counters = counters(campaignId);
+        counters.finishedAt = nanoClock.getAsLong();
+        counters.finished = true;
+    }
+
+    public Optional<Progress> find(Long campaignId) {
+        Counters counters = campaigns.get(campaignId);
+        return counters == null ? Optional.empty() : Optional.of(counters.snapshot(campaignId, nanoClock.getAsLong()));
+    }
+
+    @Scheduled(fixedDelayString = "${app.progress.evictIntervalMs}")
+    public void evictFinished() {
+        long now = nanoClock.getAsLong();
+        campaigns.values().removeIf(counters -> counters.finished && now - counters.finishedAt > retentionNanos);
+    }
+
+    private Counters counters(Long campaignId) {
+        return campaigns.computeIfAbsent(campaignId, id -> new Counters(nanoClock.getAsLong(), 0));
+    }
+
+    private static final class Counters {
+        private final LongAdder queued = new LongAdder();
+        private final LongAdder sent = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final long startedAt;
+        private final long resumedOutcomes;
+        private volatile long finishedAt;
+        private volatile boolean finished;
+
+        private Counters(long startedAt, long resumedOutcomes) {
+            this.startedAt = startedAt;
+            this.resumedOutcomes = resumedOutcomes;
+        }
+
+        private Progress snapshot(Long campaignId, long now) {
+            boolean done = finished;
+            long end = done ? finishedAt : now;
+            long sentCount = sent.sum();
+            long failedCount = failed.sum();
+            double seconds = Math.max(end - startedAt, 1) / 1e9;
+
+            return new Progress(campaignId, queued.sum(), sentCount, failedCount,
+                    (sentCount + failedCount - resumedOutcomes) / seconds, done);
+        }
+    }
+
+    /**
+     * {@code ratePerSecond} is the average number of emails with a recorded outcome per second
+     * since the delivery started, or resumed.
+     */
+    public record Progress(Long campaignId, long queued, long sent, long failed, double ratePerSecond,
+                           boolean finished) {
+    }
+}
@@ -1,101 +1,88 @@
 package com.jyula.jyulaapi.core.services;
 
-import com.jyula.jyulaapi.core.enterprise.BussinessException;
+import com.jyula.jyulaapi.core.enterprise.BulkLookup;
+import com.jyula.jyulaapi.core.enterprise.ContactIdBitmap;
+import com.jyula.jyulaapi.core.enterprise.CountMode;
+import com.jyula.jyulaapi.core.enterprise.KeysetPage;
 import com.jyula.jyulaapi.core.entities.*;
-import com.jyula.jyulaapi.core.providers.MailSenderProvider;
 import com.jyula.jyulaapi.core.repositories.*;
 import com.jyula.jyulaapi.core.representations.CampaignRepresentation;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
+import javax.transaction.Transactional;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 @Service
 public class CampaignService {
-    private final MailSenderProvider mailSenderProvider;
-    private final TemplateContentRepository templateContentRepository;
+    private final TemplateContentCache templateContentCache;
     private final ContactRepository contactRepository;
     private final SegmentRepository segmentRepository;
     private final CampaignRepository campaignRepository;
-    private final SentEmailRepository sentEmailRepository;
+    private final CampaignDispatchJobRepository dispatchJobRepository;
+    private final CountEstimator countEstimator;
+    private final SegmentBitmapStore segmentBitmapStore;
 
-    public CampaignService(MailSenderProvider mailSenderProvider,
-                           TemplateContentRepository templateContentRepository,
+    public CampaignService(TemplateContentCache templateContentCache,
                            ContactRepository contactRepository,
                            SegmentRepository segmentRepository,
                            CampaignRepository campaignRepository,
-                           SentEmailRepository sentEmailRepository) {
-        this.mailSenderProvider = mailSenderProvider;
-        this.templateContentRepository = templateContentRepository;
+                           CampaignDispatchJobRepository dispatchJobRepository,
+                           CountEstimator countEstimator,
+                           SegmentBitmapStore segmentBitmapStore) {
+        this.templateContentCache = templateContentCache;
         this.contactRepository = contactRepository;
         this.segmentRepository = segmentRepository;
         this.campaignRepository = campaignRepository;
-        this.sentEmailRepository = sentEmailRepository;
+        this.dispatchJobRepository = dispatchJobRepository;
+        this.countEstimator = countEstimator;
+        this.segmentBitmapStore = segmentBitmapStore;
     }
 
-    public void send(CampaignRepresentation.CreateCampaign representation) {
-        TemplateContent template = templateContentRepository.findLatest(representation.getTemplateId());
-        Set<Contact> contacts = new HashSet<>();
+    @Transactional
+    public Campaign send(CampaignRepresentation.CreateCampaign representation) {
+        TemplateContent template = templateContentCache.findLatest(representation.getTemplateId());
 
         Campaign campaign = new Campaign();
         campaign.setName(representation.getName());
         campaign.setTemplate(template.getTemplate());
+        campaign.setTemplateContent(template);
+
+        ContactIdBitmap audience = new ContactIdBitmap();
 
         if (representation.getSendTo().getContacts() != null) {
-            Set<Contact> onlyContacts = representation.getSendTo().getContacts().stream()
-                    .map(contactId -> contactRepository.findById(contactId).orElseThrow(
-                            () -> new BussinessException("Contact with id = " + contactId + " not found")))
-                    .collect(Collectors.toSet());
+            List<Contact> onlyContacts = BulkLookup.findAllByIds(
+                    contactRepository, representation.getSendTo().getContacts(), "Contact");
 
-            contacts.addAll(onlyContacts);
-            campaign.setContacts(onlyContacts);
+            campaign.setContacts(new HashSet<>(onlyContacts));
+            onlyContacts.forEach(contact -> audience.add(contact.getId()));
         }
 
         if (representation.getSendTo().getSegments() != null) {
-            Set<Segment> segments = representation.getSendTo().getSegments().stream()
-                    .map(segmentId -> segmentRepository.findById(segmentId).orElseThrow(
-                            () -> new BussinessException("Segment with id = " + segmentId + " not found")))
-                    .collect(Collectors.toSet());
-
-            segments.forEach(segment -> {
-                contacts.addAll(segment.getContacts());
-            });
+            List<Segment> segments = BulkLookup.findAllByIds(
+                    segmentRepository, representation.getSendTo().getSegments(), "Segment");
 
-            campaign.setSegments(segments);
+            campaign.setSegments(new HashSet<>(segments));
+            audience.or(segmentBitmapStore.union(representation.getSendTo().getSegments()));
         }
 
-        contacts.forEach(contact -> {
-            MailSenderProvider.SendMailRequest sendMailRequest = MailSenderProvider.SendMailRequest.builder()
-                    .from("onboarding@resend.dev")
-                    .content(template.getContent())
-                    .to(contact.getEmail())
-                    .subject(template.getAbout())
-                    .build();
-
-            SentEmail sentEmail = SentEmail.builder()
-                    .status(SentEmail.EmailStatus.PROCESSING)
-                    .campaign(campaign)
-                    .contact(contact)
-                    .build();
-
-            SentEmail savedEmail = sentEmailRepository.save(sentEmail);
-
-            try {
-                mailSenderProvider.send(sendMailRequest);
-                savedEmail.setStatus(SentEmail.EmailStatus.SENT);
-                sentEmailRepository.save(sentEmail);
-            } catch (MailSenderProvider.SendMailException ex) {
-                savedEmail.setStatus(SentEmail.EmailStatus.FAILED);
-                sentEmailRepository.save(sentEmail);
-            }
-        });
-
-        campaignRepository.save(campaign);
+        // Distinct recipients across direct contacts and segments, merged on the segments' bitmaps.
+        campaign.setAudienceSize(audience.cardinality());
+
+        Campaign savedCampaign = campaignRepository.save(campaign);
+
+        CampaignDispatchJob job = CampaignDispatchJob.builder()
+                .status(CampaignDispatchJob.JobStatus.PENDING)
+                .campaign(savedCampaign)
+                .build();
+
+        dispatchJobRepository.save(job);
+
+        return savedCampaign;
     }
 
     public Optional<Campaign> findById(Long id) {
@@ -109,4 +96,12 @@ public class CampaignService {
     public Page<Campaign> findAll(String filter, Pageable pageable) {
         return campaignRepository.findAll(filter, Campaign.class, pageable);
     }
+
+    public Slice<Campaign> findAll(String filter, Pageable pageable, CountMode count) {
+        return countEstimator.findAll(campaignRepository, Campaign.class, filter, pageable, count);
+    }
+
+    public KeysetPage<Campaign> findAll(String filter, String after, int size) {
+        return campaignRepository.findAfter(filter, Campaign.class, after, size);
+    }
 }
@@ -1,28 +1,56 @@
 package com.jyula.jyulaapi.core.services;
 
 import com.jyula.jyulaapi.core.enterprise.BussinessException;
+import com.jyula.jyulaapi.core.enterprise.ContactExportWriter;
+import com.jyula.jyulaapi.core.enterprise.ContactImportReader;
+import com.jyula.jyulaapi.core.enterprise.CountMode;
+import com.jyula.jyulaapi.core.enterprise.KeysetPage;
 import com.jyula.jyulaapi.core.entities.Contact;
 import com.jyula.jyulaapi.core.entities.security.User;
+import com.jyula.jyulaapi.core.repositories.ContactImportWriter;
 import com.jyula.jyulaapi.core.repositories.ContactRepository;
 import com.jyula.jyulaapi.core.representations.ContactRepresentation;
 import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
+import javax.transaction.Transactional;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 @Service
 public class ContactService {
+    public static final int MAX_REPORTED_REJECTIONS = 100;
+
+    private static final Pattern EMAIL = Pattern.compile("[^@\\s]+@[^@\\s]+\\.[^@\\s]+");
+    private static final int MAX_LENGTH = 255;
+
     private final ModelMapper mapper;
     private final ContactRepository repository;
+    private final ContactImportWriter importWriter;
+    private final CountEstimator countEstimator;
+    private final int exportFetchSize;
 
-    public ContactService(ModelMapper mapper, ContactRepository repository) {
+    public ContactService(ModelMapper mapper, ContactRepository repository, ContactImportWriter importWriter,
+                          CountEstimator countEstimator, @Value("${app.export.fetchSize}") int exportFetchSize) {
         this.mapper = mapper;
         this.repository = repository;
+        this.importWriter = importWriter;
+        this.countEstimator = countEstimator;
+        this.exportFetchSize = exportFetchSize;
     }
 
     public Contact save(ContactRepresentation.CreateOrUpdateContact representation) {
@@ -38,6 +66,38 @@ public class ContactService {
         return repository.findAll(filter, Contact.class, pageable);
     }
 
+    public Slice<Contact> findAll(String filter, Pageable pageable, CountMode count) {
+        return countEstimator.findAll(repository, Contact.class, filter, pageable, count);
+    }
+
+    public KeysetPage<Contact> findAll(String filter, String after, int size) {
+        return repository.findAfter(filter, Contact.class, after, size);
+    }
+
+    /**
+     * Writes every contact matching {@code filter} to {@code output}, reading them through a cursor
+     * of {@code app.export.fetchSize} rows. The transaction keeps the cursor open for the whole
+     * export. Returns the number of contacts written.
+     */
+    @Transactional
+    public long exportContacts(String filter, ContactImportReader.Format format, OutputStream output)
+            throws IOException {
+        ContactExportWriter writer = new ContactExportWriter(output, format);
+        long exported = 0;
+
+        try (Stream<Contact> contacts = repository.stream(filter, Contact.class, exportFetchSize)) {
+            Iterator<Contact> iterator = contacts.iterator();
+
+            while (iterator.hasNext()) {
+                writer.write(iterator.next());
+                exported++;
+            }
+        }
+
+        writer.flush();
+        return exported;
+    }
+
     public Optional<Contact> findById(Long id) {
         return repository.findById(id);
     }
@@ -56,4 +116,74 @@ public class ContactService {
     public void remove(Long id) {
         repository.deleteById(id);
     }
+
+    /**
+     * Imports contacts from a CSV or NDJSON stream, upserting on email. Invalid records are counted
+     * and skipped, and the first {@link #MAX_REPORTED_REJECTIONS} are reported with their line; the
+     * valid ones are merged in one transaction.
+     */
+    public ImportResult importContacts(InputStream input, ContactImportReader.Format format) {
+        List<Rejection> rejections = new ArrayList<>();
+        long[] rejected = {0};
+
+        try (ContactImportReader reader = ContactImportReader.open(input, format)) {
+            ContactImportWriter.Result result = importWriter.importContacts(() -> {
+                ContactImportReader.Row row;
+
+                while ((row = reader.next()) != null) {
+                    String email = Contact.normalizeEmail(row.email());
+                    String name = row.name() != null ? row.name().trim() : null;
+                    String error = row.error() != null ? row.error() : validate(email, name);
+
+                    if (error == null) {
+                        return new ContactImportReader.Row(row.line(), email, name, null);
+                    }
+
+                    rejected[0]++;
+                    if (rejections.size() < MAX_REPORTED_REJECTIONS) {
+                        rejections.add(new Rejection(row.line(), error));
+                    }
+                }
+
+                return null;
+            });
+
+            return new ImportResult(result.inserted(), result.updated(),
+                    result.staged() - result.inserted() - result.updated() - result.duplicates(),
+                    result.duplicates(), rejected[0], rejections);
+        } catch (IOException | UncheckedIOException ex) {
+            throw new BussinessException("Could not read contact import: " + ex.getMessage());
+        }
+    }
+
+    private static String validate(String email, String name) {
+        if (email == null || email.isEmpty()) {
+            return "email cannot be empty";
+        }
+
+        if (email.length() > MAX_LENGTH || !EMAIL.matcher(email).matches()) {
+            return "email = " + email + " is not valid";
+        }
+
+        if (name == null || name.isEmpty()) {
+            return "name cannot be empty";
+        }
+
+        if (name.length() > MAX_LENGTH) {
+            return "name is longer than " + MAX_LENGTH + " characters";
+        }
+
+        return null;
+    }
+
+    /**
+     * {@code unchanged} contacts already existed with the same name; {@code duplicates} were
+     * superseded by a later record for the same email.
+     */
+    public record ImportResult(long inserted, long updated, long unchanged, long duplicates, long rejected,
+                               List<Rejection> rejections) {
+    }
+
+    public record Rejection(long line, String reason) {
+    }
 }
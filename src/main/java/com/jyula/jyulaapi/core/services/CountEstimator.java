@@ -0,0 +1,98 @@
+package com.jyula.jyulaapi.core.services;
+
+import com.jyula.jyulaapi.core.enterprise.BooleanBuilderUtil;
+import com.jyula.jyulaapi.core.enterprise.BoundedCache;
+import com.jyula.jyulaapi.core.enterprise.CountMode;
+import com.jyula.jyulaapi.core.enterprise.CustomQuerydslPredicateExecutor;
+import com.querydsl.core.BooleanBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.Table;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Serves paged listings under a {@link CountMode}. {@code ESTIMATE} reads the planner's row
+ * estimate from {@code pg_class} for unfiltered listings and a count cached for
+ * {@code app.countCache.ttlSeconds} for filtered ones; either way the total is exact on the last
+ * page and never lower than the rows already seen.
+ */
+@Component
+public class CountEstimator {
+    private static final String ESTIMATE_SQL = "select reltuples::bigint from pg_class where oid = to_regclass(?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BoundedCache<String, CachedCount> counts;
+    private final Duration ttl;
+
+    public CountEstimator(JdbcTemplate jdbcTemplate,
+                          @Value("${app.countCache.ttlSeconds}") long ttlSeconds,
+                          @Value("${app.countCache.maxEntries}") int maxEntries) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        this.counts = new BoundedCache<>(maxEntries);
+    }
+
+    public <T> Slice<T> findAll(CustomQuerydslPredicateExecutor<T> repository, Class<T> entityType,
+                                String filter, Pageable pageable, CountMode mode) {
+        BooleanBuilder predicate = BooleanBuilderUtil.buildPredicateFromFilter(filter, entityType);
+
+        if (mode == CountMode.EXACT) {
+            return repository.findAll(predicate, pageable);
+        }
+
+        Slice<T> slice = repository.findSlice(predicate, pageable);
+
+        if (mode == CountMode.NONE || pageable.isUnpaged()) {
+            return slice;
+        }
+
+        long seen = pageable.getOffset() + slice.getNumberOfElements();
+        long total;
+
+        if (!slice.hasNext() && (slice.hasContent() || pageable.getOffset() == 0)) {
+            total = seen;
+        } else {
+            long estimate = predicate.hasValue()
+                    ? cachedCount(repository, entityType, filter, predicate)
+                    : plannerEstimate(repository, entityType, predicate);
+            total = slice.hasNext() ? Math.max(estimate, seen + 1) : estimate;
+        }
+
+        return new PageImpl<>(slice.getContent(), pageable, total);
+    }
+
+    private <T> long plannerEstimate(CustomQuerydslPredicateExecutor<T> repository, Class<T> entityType,
+                                     BooleanBuilder predicate) {
+        Table table = entityType.getAnnotation(Table.class);
+        Long estimate = table == null ? null : jdbcTemplate.queryForObject(ESTIMATE_SQL, Long.class, table.name());
+
+        // reltuples is -1 until the table is first vacuumed or analyzed.
+        return estimate != null && estimate >= 0 ? estimate : repository.count(predicate);
+    }
+
+    private <T> long cachedCount(CustomQuerydslPredicateExecutor<T> repository, Class<T> entityType,
+                                 String filter, BooleanBuilder predicate) {
+        String key = entityType.getName() + '|' + filter;
+        CachedCount cached = counts.get(key, k -> load(repository, predicate));
+
+        if (cached.expiresAt().isBefore(Instant.now())) {
+            counts.invalidate(key);
+            cached = counts.get(key, k -> load(repository, predicate));
+        }
+
+        return cached.count();
+    }
+
+    private <T> CachedCount load(CustomQuerydslPredicateExecutor<T> repository, BooleanBuilder predicate) {
+        return new CachedCount(repository.count(predicate), Instant.now().plus(ttl));
+    }
+
+    private record CachedCount(long count, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,50 @@
+package com.jyula.jyulaapi.core.services;
+
+import com.jyula.jyulaapi.core.providers.MailSenderProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Fans provider batches out over at most {@code app.dispatch.maxInFlight} concurrent calls.
+ * {@link #submit} blocks the caller while that many calls are outstanding, so a slow provider
+ * holds back the delivery loop instead of letting queued requests pile up in memory.
+ */
+@Component
+public class MailDispatcher {
+    private final MailSenderProvider mailSenderProvider;
+    private final Executor executor;
+    private final Semaphore inFlight;
+
+    public MailDispatcher(MailSenderProvider mailSenderProvider,
+                          @Qualifier("mailDispatchExecutor") Executor executor,
+                          @Value("${app.dispatch.maxInFlight}") int maxInFlight) {
+        this.mailSenderProvider = mailSenderProvider;
+        this.executor = executor;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    public CompletableFuture<List<MailSenderProvider.SendMailResult>> submit(
+            List<MailSenderProvider.SendMailRequest> requests) {
+
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(ex);
+        }
+
+        try {
+            return CompletableFuture.supplyAsync(() -> mailSenderProvider.sendBatch(requests), executor)
+                    .whenComplete((results, error) -> inFlight.release());
+        } catch (RuntimeException ex) {
+            inFlight.release();
+            throw ex;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.jyula.jyulaapi.core.services;
+
+import com.jyula.jyulaapi.core.enterprise.ContactIdBitmap;
+import com.jyula.jyulaapi.core.entities.SegmentBitmap;
+import com.jyula.jyulaapi.core.repositories.SegmentBitmapRepository;
+import com.jyula.jyulaapi.core.repositories.SegmentRepository;
+import org.springframework.stereotype.Component;
+
+import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Keeps one {@link ContactIdBitmap} per segment in step with its {@code segments_contacts} rows, so
+ * audiences spanning several segments are merged and counted on primitive ids instead of loading
+ * contacts. Every membership write must report its change here in the same transaction.
+ *
+ * <p>Segments written before bitmaps existed get theirs built from the join table the first time
+ * they are read or changed, always under a lock on the segment row: readers take a share lock and
+ * membership writers already hold {@link SegmentRepository#findForUpdate}. A bitmap is therefore
+ * never built from rows a concurrent writer is still changing.
+ */
+@Component
+public class SegmentBitmapStore {
+    private final SegmentBitmapRepository segmentBitmapRepository;
+    private final SegmentRepository segmentRepository;
+
+    public SegmentBitmapStore(SegmentBitmapRepository segmentBitmapRepository,
+                              SegmentRepository segmentRepository) {
+        this.segmentBitmapRepository = segmentBitmapRepository;
+        this.segmentRepository = segmentRepository;
+    }
+
+    @Transactional
+    public ContactIdBitmap members(Long segmentId) {
+        return union(List.of(segmentId));
+    }
+
+    /**
+     * Bitmap of each of {@code segmentIds}, keyed by segment id and read with one query for the
+     * stored bitmaps. Missing ones are built after share-locking their segments, which waits for
+     * any membership write in progress to commit.
+     */
+    @Transactional
+    public Map<Long, ContactIdBitmap> members(Collection<Long> segmentIds) {
+        Map<Long, ContactIdBitmap> bitmaps = new HashMap<>();
+
+        for (SegmentBitmap stored : segmentBitmapRepository.findBySegmentIdIn(segmentIds)) {
+            bitmaps.put(stored.getSegmentId(), stored.getBitmap());
+        }
+
+        List<Long> missing = segmentIds.stream().distinct().filter(id -> !bitmaps.containsKey(id)).toList();
+
+        if (!missing.isEmpty()) {
+            segmentRepository.findAllForShare(missing);
+        }
+
+        for (Long segmentId : missing) {
+            bitmaps.put(segmentId, build(segmentId));
+        }
+
+        return bitmaps;
+    }
+
+    /**
+     * Distinct contact ids across {@code segmentIds}, read with one query for the stored bitmaps.
+     */
+    @Transactional
+    public ContactIdBitmap union(Collection<Long> segmentIds) {
+        List<ContactIdBitmap> bitmaps = new ArrayList<>(members(segmentIds).values());
+        return bitmaps.size() == 1 ? bitmaps.get(0) : ContactIdBitmap.union(bitmaps);
+    }
+
+    /**
+     * Records {@code contactIds} joining the segment.
+     */
+    @Transactional
+    public void added(Long segmentId, Collection<Long> contactIds) {
+        changed(segmentId, contactIds, List.of());
+    }
+
+    /**
+     * Records {@code contactIds} leaving the segment.
+     */
+    @Transactional
+    public void removed(Long segmentId, Collection<Long> contactIds) {
+        changed(segmentId, List.of(), contactIds);
+    }
+
+    /**
+     * Records {@code added} joining and {@code removed} leaving the segment in one write. The
+     * caller must hold the segment's row lock, as for every membership write.
+     */
+    @Transactional
+    public void changed(Long segmentId, Collection<Long> added, Collection<Long> removed) {
+        if (added.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+
+        update(segmentId, bitmap -> {
+            removed.forEach(bitmap::remove);
+            added.forEach(bitmap::add);
+        });
+    }
+
+    /**
+     * Records the segment's members being replaced by exactly {@code contactIds}.
+     */
+    @Transactional
+    public void replaced(Long segmentId, Collection<Long> contactIds) {
+        replaced(segmentId, ContactIdBitmap.of(contactIds));
+    }
+
+    @Transactional
+    public void replaced(Long segmentId, ContactIdBitmap members) {
+        SegmentBitmap stored = segmentBitmapRepository.findForUpdate(segmentId)
+                .orElseGet(() -> SegmentBitmap.builder().segmentId(segmentId).build());
+
+        stored.setBitmap(members);
+        stored.setUpdatedAt(LocalDateTime.now());
+        segmentBitmapRepository.save(stored);
+    }
+
+    @Transactional
+    public void deleted(Long segmentId) {
+        segmentBitmapRepository.deleteBySegmentId(segmentId);
+    }
+
+    // Without a stored bitmap the join table, which already holds the change, is the whole truth.
+    private void update(Long segmentId, Consumer<ContactIdBitmap> change) {
+        segmentBitmapRepository.findForUpdate(segmentId).ifPresentOrElse(stored -> {
+            ContactIdBitmap bitmap = stored.getBitmap();
+            change.accept(bitmap);
+            stored.setBitmap(bitmap);
+            stored.setUpdatedAt(LocalDateTime.now());
+            segmentBitmapRepository.save(stored);
+        }, () -> build(segmentId));
+    }
+
+    // Only called with the segment row locked, so the join table cannot change underneath.
+    private ContactIdBitmap build(Long segmentId) {
+        ContactIdBitmap built = ContactIdBitmap.of(segmentRepository.findMemberIds(segmentId));
+        segmentBitmapRepository.insertIfAbsent(segmentId, built.serialize(), built.cardinality());
+        return built;
+    }
+}
@@ -1,20 +1,39 @@
 package com.jyula.jyulaapi.core.services;
 
+import com.jyula.jyulaapi.core.enterprise.BulkLookup;
 import com.jyula.jyulaapi.core.enterprise.BussinessException;
+import com.jyula.jyulaapi.core.enterprise.ContactIdBitmap;
+import com.jyula.jyulaapi.core.enterprise.CountMode;
+import com.jyula.jyulaapi.core.enterprise.KeysetPage;
+import com.jyula.jyulaapi.core.enterprise.SegmentExpression;
 import com.jyula.jyulaapi.core.entities.Contact;
+import com.jyula.jyulaapi.core.entities.QContact;
+import com.jyula.jyulaapi.core.entities.QSegment;
 import com.jyula.jyulaapi.core.entities.Segment;
 import com.jyula.jyulaapi.core.entities.security.User;
 import com.jyula.jyulaapi.core.repositories.ContactRepository;
+import com.jyula.jyulaapi.core.repositories.SegmentMembershipWriter;
 import com.jyula.jyulaapi.core.repositories.SegmentRepository;
 import com.jyula.jyulaapi.core.repositories.security.UserRepository;
 import com.jyula.jyulaapi.core.representations.SegmentRepresentation;
+import com.querydsl.jpa.JPAExpressions;
 import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
+import javax.transaction.Transactional;
+
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -25,32 +44,86 @@ public class SegmentService {
     private final SegmentRepository segmentRepository;
     private final ContactRepository contactRepository;
     private final UserRepository userRepository;
+    private final CountEstimator countEstimator;
+    private final SegmentBitmapStore segmentBitmapStore;
+    private final SegmentMembershipWriter membershipWriter;
 
     public SegmentService(ModelMapper mapper, SegmentRepository segmentRepository,
-                          ContactRepository contactRepository, UserRepository userRepository) {
+                          ContactRepository contactRepository, UserRepository userRepository,
+                          CountEstimator countEstimator, SegmentBitmapStore segmentBitmapStore,
+                          SegmentMembershipWriter membershipWriter) {
         this.mapper = mapper;
         this.segmentRepository = segmentRepository;
         this.contactRepository = contactRepository;
         this.userRepository = userRepository;
+        this.countEstimator = countEstimator;
+        this.segmentBitmapStore = segmentBitmapStore;
+        this.membershipWriter = membershipWriter;
     }
 
+    @Transactional
     public Segment save(SegmentRepresentation.CreateOrUpdateSegment representation) {
         User user = userRepository.findByUsername(representation.getUsername())
                 .orElseThrow(() -> new BussinessException(
                         "User with username = " + representation.getUsername() + " not found"));
 
-        Set<Contact> contacts = representation.getContacts().stream()
-                .map((email) -> contactRepository.findByEmail(email)
-                        .orElseThrow(() -> new BussinessException("Contacts with email = " + email + " not found")))
+        Set<Contact> contacts = findContactsByEmail(representation.getContacts());
+
+        Segment segment = Segment.builder()
+                .user(user)
+                .name(representation.getName())
+                .contacts(new HashSet<>())
+                .build();
+
+        Segment savedSegment = segmentRepository.save(segment);
+        List<Long> added = membershipWriter.add(savedSegment, contactIds(contacts));
+        segmentBitmapStore.replaced(savedSegment.getId(), added);
+
+        return savedSegment;
+    }
+
+    /**
+     * Creates a segment holding the result of {@code representation}'s expression over existing
+     * segments. The members are written with one {@code INSERT ... SELECT} and the new bitmap is
+     * computed from the operands' bitmaps, so no contact is read into the application.
+     */
+    @Transactional
+    public Segment compose(SegmentRepresentation.ComposeSegment representation) {
+        User user = userRepository.findByUsername(representation.getUsername())
+                .orElseThrow(() -> new BussinessException(
+                        "User with username = " + representation.getUsername() + " not found"));
+
+        SegmentExpression expression = representation.getExpression().toSegmentExpression();
+        Set<Long> segmentIds = expression.segmentIds();
+
+        Set<Long> found = segmentRepository.findAllForShare(segmentIds).stream()
+                .map(Segment::getId)
                 .collect(Collectors.toSet());
+        List<Long> missing = segmentIds.stream().filter(id -> !found.contains(id)).sorted().toList();
+
+        if (!missing.isEmpty()) {
+            throw BulkLookup.notFound("Segment", "id", missing);
+        }
+
+        ContactIdBitmap members = expression.evaluate(segmentBitmapStore.members(segmentIds));
 
         Segment segment = Segment.builder()
                 .user(user)
                 .name(representation.getName())
-                .contacts(contacts)
+                .contacts(new HashSet<>())
                 .build();
 
-        return segmentRepository.save(segment);
+        Segment savedSegment = segmentRepository.save(segment);
+        int added = membershipWriter.addComposed(savedSegment, expression);
+
+        // A bitmap disagreeing with the rows just written is dropped and rebuilt from them on first read.
+        if (added == members.cardinality()) {
+            segmentBitmapStore.replaced(savedSegment.getId(), members);
+        } else {
+            segmentBitmapStore.deleted(savedSegment.getId());
+        }
+
+        return savedSegment;
     }
 
     public List<Segment> findAll(String filter) {
@@ -61,42 +134,158 @@ public class SegmentService {
         return segmentRepository.findAll(filter, Segment.class, pageable);
     }
 
+    public Slice<Segment> findAll(String filter, Pageable pageable, CountMode count) {
+        return countEstimator.findAll(segmentRepository, Segment.class, filter, pageable, count);
+    }
+
+    public KeysetPage<Segment> findAll(String filter, String after, int size) {
+        return segmentRepository.findAfter(filter, Segment.class, after, size);
+    }
+
     public Optional<Segment> findById(Long id) {
         return segmentRepository.findById(id);
     }
 
+    /**
+     * Member count of each of {@code segmentIds}, read with one grouped query; segments without
+     * members map to zero.
+     */
+    public Map<Long, Long> countMembers(Collection<Long> segmentIds) {
+        if (segmentIds.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<Long, Long> counts = new HashMap<>();
+        segmentIds.forEach(segmentId -> counts.put(segmentId, 0L));
+        segmentRepository.countMembers(segmentIds)
+                .forEach(count -> counts.put(count.getSegmentId(), count.getContacts()));
+
+        return counts;
+    }
+
+    /**
+     * Keyset page of the segment's members, ordered like every other keyset listing.
+     */
+    public KeysetPage<Contact> findMembers(Long id, String after, int size) {
+        if (!segmentRepository.existsById(id)) {
+            throw new BussinessException("Segment with id = " + id + " not found");
+        }
+
+        QSegment segment = QSegment.segment;
+        QContact member = new QContact("member");
+
+        return contactRepository.findAfter(QContact.contact.id.in(JPAExpressions.select(member.id)
+                .from(segment)
+                .join(segment.contacts, member)
+                .where(segment.id.eq(id))), after, size);
+    }
+
+    @Transactional
     public void remove(Long id) {
         segmentRepository.deleteById(id);
+        segmentBitmapStore.deleted(id);
     }
 
+    /**
+     * Number of distinct contacts across {@code segmentIds}, counted on the segments' bitmaps.
+     */
+    @Transactional
+    public long countAudience(Set<Long> segmentIds) {
+        BulkLookup.findAllByIds(segmentRepository, segmentIds, "Segment");
+        return segmentBitmapStore.union(segmentIds).cardinality();
+    }
+
+    /**
+     * Replaces the members with the given contacts. Only the difference to the current members,
+     * taken from the segment's bitmap, is written.
+     */
+    @Transactional
     public Segment update(Long id, SegmentRepresentation.CreateOrUpdateSegment representation) {
-        Segment foundEntity = segmentRepository.findById(id)
-                .orElseThrow(() -> new BussinessException("Segment with id = " + id + " not found"));
+        Segment foundEntity = findForUpdate(id);
 
-        Set<Contact> contacts = representation.getContacts().stream()
-                .map((email) -> contactRepository.findByEmail(email)
-                        .orElseThrow(() -> new BussinessException("Contacts with email = " + email + " not found")))
-                .collect(Collectors.toSet());
+        Set<Contact> contacts = findContactsByEmail(representation.getContacts());
 
         foundEntity.setName(representation.getName());
-        foundEntity.setContacts(contacts);
         foundEntity.setUpdatedAt(LocalDateTime.now());
 
+        ContactIdBitmap wanted = ContactIdBitmap.of(contactIds(contacts));
+        ContactIdBitmap current = segmentBitmapStore.members(id);
+
+        List<Long> removed = membershipWriter.remove(foundEntity, ids(current.copy().andNot(wanted)));
+        List<Long> added = membershipWriter.add(foundEntity, ids(wanted.andNot(current)));
+        segmentBitmapStore.changed(id, added, removed);
+
         return segmentRepository.save(foundEntity);
     }
 
+    @Transactional
     public Segment addContacts(Long id, Set<String> emails) {
-        Segment foundEntity = segmentRepository.findById(id)
-                .orElseThrow(() -> new BussinessException("Segment with id = " + id + " not found"));
+        Segment foundEntity = findForUpdate(id);
 
-        Set<Contact> contacts = emails.stream()
-                .map((email) -> contactRepository.findByEmail(email)
-                        .orElseThrow(() -> new BussinessException("Contacts with email = " + email + " not found")))
-                .collect(Collectors.toSet());
+        Set<Contact> contacts = findContactsByEmail(emails);
+
+        foundEntity.setUpdatedAt(LocalDateTime.now());
+
+        List<Long> added = membershipWriter.add(foundEntity, contactIds(contacts));
+        segmentBitmapStore.added(id, added);
+
+        return segmentRepository.save(foundEntity);
+    }
+
+    @Transactional
+    public Segment removeContacts(Long id, Set<String> emails) {
+        Segment foundEntity = findForUpdate(id);
+
+        Set<Contact> contacts = findContactsByEmail(emails);
 
-        contacts.forEach((foundEntity::addContact));
         foundEntity.setUpdatedAt(LocalDateTime.now());
 
+        List<Long> removed = membershipWriter.remove(foundEntity, contactIds(contacts));
+        segmentBitmapStore.removed(id, removed);
+
         return segmentRepository.save(foundEntity);
     }
+
+    private Segment findForUpdate(Long id) {
+        return segmentRepository.findForUpdate(id)
+                .orElseThrow(() -> new BussinessException("Segment with id = " + id + " not found"));
+    }
+
+    /**
+     * Resolves emails case-insensitively with one query per {@link BulkLookup#CHUNK_SIZE} emails and
+     * fails with a single error naming every email that has no contact.
+     */
+    private Set<Contact> findContactsByEmail(Collection<String> emails) {
+        Map<String, String> byNormalized = new LinkedHashMap<>();
+        emails.forEach(email -> byNormalized.putIfAbsent(Contact.normalizeEmail(email), email));
+
+        List<Contact> found = BulkLookup.findInChunks(new ArrayList<>(byNormalized.keySet()),
+                contactRepository::findByEmailIn);
+
+        Set<String> foundEmails = found.stream().map(contact -> Contact.normalizeEmail(contact.getEmail()))
+                .collect(Collectors.toSet());
+        List<String> missing = byNormalized.entrySet().stream()
+                .filter(entry -> !foundEmails.contains(entry.getKey()))
+                .map(Map.Entry::getValue)
+                .sorted()
+                .toList();
+
+        if (missing.size() == 1) {
+            throw new BussinessException("Contacts with email = " + missing.get(0) + " not found");
+        }
+
+        if (!missing.isEmpty()) {
+            throw new BussinessException("Contacts with emails = " + missing + " not found");
+        }
+
+        return new HashSet<>(found);
+    }
+
+    private static List<Long> contactIds(Collection<Contact> contacts) {
+        return contacts.stream().map(Contact::getId).toList();
+    }
+
+    private static List<Long> ids(ContactIdBitmap bitmap) {
+        return Arrays.stream(bitmap.toArray()).boxed().toList();
+    }
 }
@@ -0,0 +1,45 @@
+package com.jyula.jyulaapi.core.services;
+
+import com.jyula.jyulaapi.core.repositories.SentEmailBulkWriter;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the processing lease of the {@code sent_emails} rows this node is sending. A chunk can
+ * spend far longer than {@code app.retry.processingLeaseSeconds} inside the throttled provider
+ * while it waits for tokens and retries at a reduced rate, and the sending thread is blocked the
+ * whole time, so leases are renewed from the scheduler every {@code app.retry.leaseRenewalMs}
+ * instead. Rows must be {@link #hold held} from the moment they are PROCESSING until their results
+ * are recorded, and {@link #release released} afterwards, whatever the outcome.
+ */
+@Component
+public class SentEmailLeaseKeeper {
+    private final SentEmailBulkWriter sentEmailWriter;
+    private final Set<Long> held = ConcurrentHashMap.newKeySet();
+
+    public SentEmailLeaseKeeper(SentEmailBulkWriter sentEmailWriter) {
+        this.sentEmailWriter = sentEmailWriter;
+    }
+
+    public void hold(Collection<Long> sentEmailIds) {
+        held.addAll(sentEmailIds);
+    }
+
+    public void release(Collection<Long> sentEmailIds) {
+        held.removeAll(sentEmailIds);
+    }
+
+    @Scheduled(fixedDelayString = "${app.retry.leaseRenewalMs}")
+    public void renew() {
+        List<Long> ids = List.copyOf(held);
+
+        if (!ids.isEmpty()) {
+            sentEmailWriter.renewLeases(ids);
+        }
+    }
+}
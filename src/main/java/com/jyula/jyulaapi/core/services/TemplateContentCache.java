@@ -0,0 +1,81 @@
+package com.jyula.jyulaapi.core.services;
+
+import com.jyula.jyulaapi.core.enterprise.BoundedCache;
+import com.jyula.jyulaapi.core.entities.TemplateContent;
+import com.jyula.jyulaapi.core.repositories.TemplateContentRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Read-through cache in front of {@link TemplateContentRepository#findLatest} and
+ * {@link TemplateContentRepository#findByVersion}, bounded by LRU eviction. {@link #invalidate}
+ * must be called whenever a template is updated or removed. Cached contents are detached, so
+ * callers must treat them as read-only.
+ */
+@Component
+public class TemplateContentCache {
+    private final TemplateContentRepository templateContentRepository;
+    private final BoundedCache<Long, TemplateContent> latest;
+    private final BoundedCache<VersionKey, TemplateContent> versions;
+
+    public TemplateContentCache(TemplateContentRepository templateContentRepository,
+                                @Value("${app.templateCache.maxTemplates}") int maxTemplates,
+                                @Value("${app.templateCache.maxVersions}") int maxVersions) {
+        this.templateContentRepository = templateContentRepository;
+        this.latest = new BoundedCache<>(maxTemplates);
+        this.versions = new BoundedCache<>(maxVersions);
+    }
+
+    public TemplateContent findLatest(Long templateId) {
+        return latest.get(templateId, id -> initialized(templateContentRepository.findLatest(id)));
+    }
+
+    public TemplateContent findByVersion(Long templateId, Long version) {
+        return versions.get(new VersionKey(templateId, version),
+                key -> initialized(templateContentRepository.findByVersion(key.templateId(), key.version())));
+    }
+
+    // Entries outlive the session that loaded them, so the lazy body is loaded and decompressed now.
+    private static TemplateContent initialized(TemplateContent content) {
+        if (content != null) {
+            content.getContent();
+        }
+
+        return content;
+    }
+
+    /**
+     * Drops every entry of the template now and, when called inside a transaction, once more after
+     * it commits, so a read racing the commit cannot put the old latest version back.
+     */
+    public void invalidate(Long templateId) {
+        evict(templateId);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(templateId);
+                }
+            });
+        }
+    }
+
+    private void evict(Long templateId) {
+        latest.invalidate(templateId);
+        // Versions embed the template itself (name, favorite flag), which an update may change.
+        versions.invalidateIf(key -> key.templateId().equals(templateId));
+    }
+
+    public Stats stats() {
+        return new Stats(latest.stats(), versions.stats());
+    }
+
+    private record VersionKey(Long templateId, Long version) {
+    }
+
+    public record Stats(BoundedCache.Stats latest, BoundedCache.Stats versions) {
+    }
+}
@@ -0,0 +1,126 @@
+package com.jyula.jyulaapi.core.services;
+
+import com.jyula.jyulaapi.core.enterprise.CompiledTemplate;
+import com.jyula.jyulaapi.core.enterprise.CompressedText;
+import com.jyula.jyulaapi.core.entities.TemplateContent;
+import com.jyula.jyulaapi.core.providers.MailSenderProvider;
+import com.jyula.jyulaapi.core.repositories.SentEmailBulkWriter;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Compiles template contents once per template id and version and keeps the compiled form. A
+ * lookup for an older or newer version than the cached one compiles that version and replaces the
+ * entry, so only one version per template is ever held.
+ */
+@Component
+public class TemplateRenderer {
+    public static final String NAME = "name";
+    public static final String EMAIL = "email";
+
+    private final ConcurrentMap<Long, Compiled> cache = new ConcurrentHashMap<>();
+
+    public Compiled compiled(TemplateContent content) {
+        return compiled(content.getTemplate().getId(), content.getVersion(), () -> Source.of(content));
+    }
+
+    /**
+     * Returns the compiled form of the given version, only asking for its source when that version
+     * is not cached yet.
+     */
+    public Compiled compiled(Long templateId, Integer version, Supplier<Source> source) {
+        Compiled cached = templateId != null ? cache.get(templateId) : null;
+
+        if (cached != null && Objects.equals(cached.version(), version)) {
+            return cached;
+        }
+
+        Compiled compiled = compile(version, source.get());
+
+        if (templateId != null) {
+            cache.put(templateId, compiled);
+        }
+
+        return compiled;
+    }
+
+    /**
+     * Replaces the cached entry of the content's template with the given version, typically right
+     * after it was written. Inside a transaction the version is compiled now but only cached once
+     * the transaction commits, so a rollback cannot leave a version that was never stored.
+     */
+    public void refresh(TemplateContent content) {
+        Long templateId = content.getTemplate().getId();
+        Compiled compiled = compile(content.getVersion(), Source.of(content));
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache.put(templateId, compiled);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.put(templateId, compiled);
+            }
+        });
+    }
+
+    public void evict(Long templateId) {
+        cache.remove(templateId);
+    }
+
+    /**
+     * Placeholder values of one contact: its name, email and any extra {@code fields}.
+     */
+    public static Function<String, String> values(String name, String email, Map<String, String> fields) {
+        return placeholder -> switch (placeholder) {
+            case NAME -> name;
+            case EMAIL -> email;
+            default -> fields.get(placeholder);
+        };
+    }
+
+    public static Function<String, String> values(String name, String email) {
+        return values(name, email, Map.of());
+    }
+
+    private static Compiled compile(Integer version, Source source) {
+        return new Compiled(version,
+                CompiledTemplate.text(source.subject()),
+                CompiledTemplate.html(source.html()),
+                source.text() != null ? CompiledTemplate.text(source.text()) : null);
+    }
+
+    /**
+     * What gets sent for a version: its subject and the preprocessed HTML and text/plain bodies.
+     */
+    public record Source(String subject, String html, String text) {
+        public static Source of(TemplateContent content) {
+            return new Source(content.getAbout(), content.getCompiledContent(), content.getPlainTextContent());
+        }
+
+        /**
+         * Decompresses the claimed row's bodies, falling back to its legacy inline content.
+         */
+        public static Source of(SentEmailBulkWriter.ClaimedEmail email) {
+            return new Source(email.subject(),
+                    email.compressedBody() != null ? CompressedText.decompress(email.compressedBody()) : email.content(),
+                    email.compressedPlainText() != null ? CompressedText.decompress(email.compressedPlainText()) : null);
+        }
+    }
+
+    public record Compiled(Integer version, CompiledTemplate subject, CompiledTemplate body, CompiledTemplate text) {
+        public MailSenderProvider.Personalization personalize(String name, String email) {
+            return new MailSenderProvider.Personalization(subject, body, text, values(name, email));
+        }
+    }
+}
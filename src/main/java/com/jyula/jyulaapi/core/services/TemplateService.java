@@ -1,18 +1,26 @@
 package com.jyula.jyulaapi.core.services;
 
 import com.jyula.jyulaapi.core.enterprise.BussinessException;
+import com.jyula.jyulaapi.core.enterprise.CompressedText;
+import com.jyula.jyulaapi.core.enterprise.HtmlPreprocessor;
+import com.jyula.jyulaapi.core.enterprise.CountMode;
+import com.jyula.jyulaapi.core.enterprise.KeysetPage;
 import com.jyula.jyulaapi.core.entities.Template;
+import com.jyula.jyulaapi.core.entities.TemplateBody;
 import com.jyula.jyulaapi.core.entities.TemplateContent;
 import com.jyula.jyulaapi.core.entities.security.User;
+import com.jyula.jyulaapi.core.repositories.TemplateBodyRepository;
 import com.jyula.jyulaapi.core.repositories.TemplateContentRepository;
 import com.jyula.jyulaapi.core.repositories.TemplateRepository;
 import com.jyula.jyulaapi.core.repositories.security.UserRepository;
 import com.jyula.jyulaapi.core.representations.TemplateRepresentation;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 import javax.transaction.Transactional;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -22,12 +30,25 @@ public class TemplateService {
     private final TemplateRepository templateRepository;
     private final TemplateContentRepository templateContentRepository;
     private final UserRepository userRepository;
+    private final TemplateBodyRepository templateBodyRepository;
+    private final TemplateRenderer templateRenderer;
+    private final TemplateContentCache templateContentCache;
+    private final CountEstimator countEstimator;
 
     public TemplateService(TemplateRepository templateRepository,
-                           TemplateContentRepository templateContentRepository, UserRepository userRepository) {
+                           TemplateContentRepository templateContentRepository,
+                           UserRepository userRepository,
+                           TemplateBodyRepository templateBodyRepository,
+                           TemplateRenderer templateRenderer,
+                           TemplateContentCache templateContentCache,
+                           CountEstimator countEstimator) {
         this.templateRepository = templateRepository;
         this.templateContentRepository = templateContentRepository;
         this.userRepository = userRepository;
+        this.templateBodyRepository = templateBodyRepository;
+        this.templateRenderer = templateRenderer;
+        this.templateContentCache = templateContentCache;
+        this.countEstimator = countEstimator;
     }
 
     @Transactional
@@ -47,7 +68,7 @@ public class TemplateService {
         TemplateContent templateContent = TemplateContent.builder()
                 .version(1)
                 .about(representation.getAbout())
-                .content(representation.getContent())
+                .body(storeBody(representation.getContent()))
                 .template(template)
                 .isLatest(true)
                 .build();
@@ -65,12 +86,22 @@ public class TemplateService {
         return templateRepository.findAll(filter, Template.class, pageable);
     }
 
+    public Slice<Template> findAll(String filter, Pageable pageable, CountMode count) {
+        return countEstimator.findAll(templateRepository, Template.class, filter, pageable, count);
+    }
+
+    public KeysetPage<Template> findAll(String filter, String after, int size) {
+        return templateRepository.findAfter(filter, Template.class, after, size);
+    }
+
     public Optional<Template> findById(Long id) {
         return templateRepository.findById(id);
     }
 
     public void remove(Long id) {
         templateRepository.deleteById(id);
+        templateRenderer.evict(id);
+        templateContentCache.invalidate(id);
     }
 
     @Transactional
@@ -87,26 +118,68 @@ public class TemplateService {
         TemplateContent templateContent = TemplateContent.builder()
                 .version(latest.getVersion() + 1)
                 .about(representation.getAbout())
-                .content(representation.getContent())
+                .body(storeBody(representation.getContent()))
                 .template(foundEntity)
                 .isLatest(true)
                 .build();
 
         templateContentRepository.unsetOldLatest(foundEntity.getId());
         templateContentRepository.save(templateContent);
+        templateRenderer.refresh(templateContent);
+        templateContentCache.invalidate(foundEntity.getId());
 
         return templateRepository.save(foundEntity);
     }
 
+    /**
+     * Returns the shared body row for {@code content}, preprocessing and storing it compressed on
+     * first use. Versions that only change the subject, or revert to an earlier body, reuse the
+     * existing row and its preprocessed form.
+     */
+    private TemplateBody storeBody(String content) {
+        if (content == null) {
+            return null;
+        }
+
+        String hash = CompressedText.hash(content);
+
+        TemplateBody body = templateBodyRepository.findByHash(hash).orElseGet(() -> {
+            HtmlPreprocessor.Result compiled = HtmlPreprocessor.process(content);
+
+            templateBodyRepository.insertIfAbsent(hash,
+                    CompressedText.compress(content), content.getBytes(StandardCharsets.UTF_8).length,
+                    CompressedText.compress(compiled.html()), compiled.html().getBytes(StandardCharsets.UTF_8).length,
+                    CompressedText.compress(compiled.text()));
+
+            return templateBodyRepository.findByHash(hash)
+                    .orElseThrow(() -> new IllegalStateException("Template body " + hash + " was not stored"));
+        });
+
+        body.setText(content);
+        return body;
+    }
+
     public TemplateContent getLatestContent(Long templateId) {
-        return templateContentRepository.findLatest(templateId);
+        return templateContentCache.findLatest(templateId);
     }
 
     public TemplateContent getContentByVersion(Long templateId, Long version) {
-        return templateContentRepository.findByVersion(templateId, version);
+        return templateContentCache.findByVersion(templateId, version);
+    }
+
+    public TemplateContentCache.Stats getCacheStats() {
+        return templateContentCache.stats();
     }
 
     public Long getNumberOfVersions(Long templateId) {
         return templateContentRepository.countByTemplateId(templateId);
     }
+
+    public Page<TemplateContentRepository.VersionSummary> getVersions(Long templateId, Pageable pageable) {
+        if (!templateRepository.existsById(templateId)) {
+            throw new BussinessException("Template with id = " + templateId + " not found");
+        }
+
+        return templateContentRepository.findVersions(templateId, pageable);
+    }
 }
@@ -0,0 +1,57 @@
+package com.jyula.jyulaapi.application.adapters;
+
+import com.jyula.jyulaapi.core.providers.MailSenderProvider;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalMailSenderAdapterTest {
+
+    private static List<MailSenderProvider.SendMailRequest> requests(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> MailSenderProvider.SendMailRequest.builder()
+                        .from("onboarding@resend.dev")
+                        .to("contact" + i + "@example.com")
+                        .subject("Subject")
+                        .content("Content")
+                        .build())
+                .toList();
+    }
+
+    @Test
+    @DisplayName("Should split a batch into provider calls of at most batchSize requests")
+    void sendBatch_ShouldSplitIntoChunks() {
+        LocalMailSenderAdapter adapter = new LocalMailSenderAdapter(100);
+        List<MailSenderProvider.SendMailRequest> requests = requests(250);
+
+        List<MailSenderProvider.SendMailResult> results = adapter.sendBatch(requests);
+
+        assertEquals(3, adapter.getProviderCalls());
+        assertEquals(250, results.size());
+        assertTrue(results.stream().allMatch(MailSenderProvider.SendMailResult::isSent));
+        for (int i = 0; i < requests.size(); i++) {
+            assertSame(requests.get(i), results.get(i).request());
+        }
+    }
+
+    @Test
+    @DisplayName("Should not call the provider for an empty batch")
+    void sendBatch_ShouldNotCallProvider_WhenEmpty() {
+        LocalMailSenderAdapter adapter = new LocalMailSenderAdapter(100);
+
+        List<MailSenderProvider.SendMailResult> results = adapter.sendBatch(List.of());
+
+        assertTrue(results.isEmpty());
+        assertEquals(0, adapter.getProviderCalls());
+    }
+
+    @Test
+    @DisplayName("Should reject a non-positive batch size")
+    void constructor_ShouldRejectNonPositiveBatchSize() {
+        assertThrows(IllegalArgumentException.class, () -> new LocalMailSenderAdapter(0));
+    }
+}
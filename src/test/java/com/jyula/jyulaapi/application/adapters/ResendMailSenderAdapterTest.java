@@ -0,0 +1,52 @@
+package com.jyula.jyulaapi.application.adapters;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jyula.jyulaapi.core.enterprise.CompiledTemplate;
+import com.jyula.jyulaapi.core.providers.MailSenderProvider;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResendMailSenderAdapterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Should encode personalized and plain requests into one valid batch payload")
+    void encodeBatch_ShouldWriteValidJson() throws Exception {
+        CompiledTemplate subject = CompiledTemplate.text("Hi {{name}}");
+        CompiledTemplate body = CompiledTemplate.html("<p class=\"x\">Olá {{name}}\n</p>");
+
+        List<MailSenderProvider.SendMailRequest> chunk = List.of(
+                MailSenderProvider.SendMailRequest.builder()
+                        .from("onboarding@resend.dev")
+                        .to("ana@example.com")
+                        .personalization(new MailSenderProvider.Personalization(
+                                subject, body, CompiledTemplate.text("Olá {{name}}"), Map.of("name", "Ana \"<3\"")::get))
+                        .build(),
+                MailSenderProvider.SendMailRequest.builder()
+                        .from("onboarding@resend.dev")
+                        .to("bo@example.com")
+                        .subject("Plain")
+                        .content("<b>Body</b>")
+                        .build());
+
+        JsonNode payload = objectMapper.readTree(ResendMailSenderAdapter.encodeBatch(chunk));
+
+        assertEquals(2, payload.size());
+        assertEquals("onboarding@resend.dev", payload.get(0).get("from").asText());
+        assertEquals("ana@example.com", payload.get(0).get("to").get(0).asText());
+        assertEquals("Hi Ana \"<3\"", payload.get(0).get("subject").asText());
+        assertEquals("<p class=\"x\">Olá Ana &quot;&lt;3&quot;\n</p>", payload.get(0).get("html").asText());
+        assertEquals(chunk.get(0).getContent(), payload.get(0).get("html").asText());
+        assertEquals("Olá Ana \"<3\"", payload.get(0).get("text").asText());
+        assertEquals("Plain", payload.get(1).get("subject").asText());
+        assertEquals("<b>Body</b>", payload.get(1).get("html").asText());
+        assertFalse(payload.get(1).has("text"));
+    }
+}
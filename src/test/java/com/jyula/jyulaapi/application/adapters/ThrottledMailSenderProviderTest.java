@@ -0,0 +1,101 @@
+package com.jyula.jyulaapi.application.adapters;
+
+import com.jyula.jyulaapi.core.providers.MailSenderProvider;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThrottledMailSenderProviderTest {
+
+    private static List<MailSenderProvider.SendMailRequest> requests(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> MailSenderProvider.SendMailRequest.builder()
+                        .from("onboarding@resend.dev")
+                        .to("contact" + i + "@example.com")
+                        .subject("Subject")
+                        .content("Content")
+                        .build())
+                .toList();
+    }
+
+    private static class ScriptedAdapter extends BatchingMailSenderAdapter {
+        private final List<Function<List<SendMailRequest>, List<SendMailResult>>> script;
+        private final List<Integer> chunkSizes = new ArrayList<>();
+
+        @SafeVarargs
+        ScriptedAdapter(int batchSize, Function<List<SendMailRequest>, List<SendMailResult>>... script) {
+            super(batchSize);
+            this.script = List.of(script);
+        }
+
+        @Override
+        public SendMailResponse send(SendMailRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected List<SendMailResult> sendChunk(List<SendMailRequest> chunk) {
+            chunkSizes.add(chunk.size());
+            return script.get(Math.min(chunkSizes.size(), script.size()) - 1).apply(chunk);
+        }
+    }
+
+    private static List<MailSenderProvider.SendMailResult> ok(List<MailSenderProvider.SendMailRequest> chunk) {
+        return chunk.stream()
+                .map(request -> MailSenderProvider.SendMailResult.sent(
+                        request, new MailSenderProvider.SendMailResponse("id")))
+                .toList();
+    }
+
+    private static Function<List<MailSenderProvider.SendMailRequest>, List<MailSenderProvider.SendMailResult>> status(
+            int statusCode) {
+        return chunk -> BatchingMailSenderAdapter.failAll(chunk, new IOException("status " + statusCode), statusCode);
+    }
+
+    @Test
+    @DisplayName("Should retry items rejected with 429 and halve the call rate")
+    void sendBatch_ShouldRetryRateLimitedItems() {
+        ScriptedAdapter adapter = new ScriptedAdapter(10, status(429), ThrottledMailSenderProviderTest::ok);
+        ThrottledMailSenderProvider provider = new ThrottledMailSenderProvider(adapter, 1000, 3);
+
+        List<MailSenderProvider.SendMailResult> results = provider.sendBatch(requests(5));
+
+        assertEquals(List.of(5, 5), adapter.chunkSizes);
+        assertEquals(5, results.size());
+        assertTrue(results.stream().allMatch(MailSenderProvider.SendMailResult::isSent));
+        assertEquals(600, provider.getCurrentRate(), 0.001);
+    }
+
+    @Test
+    @DisplayName("Should report items as failed once maxRetries is exhausted")
+    void sendBatch_ShouldFailAfterMaxRetries() {
+        ScriptedAdapter adapter = new ScriptedAdapter(10, status(503));
+        ThrottledMailSenderProvider provider = new ThrottledMailSenderProvider(adapter, 1000, 2);
+
+        List<MailSenderProvider.SendMailResult> results = provider.sendBatch(requests(3));
+
+        assertEquals(List.of(3, 3, 3), adapter.chunkSizes);
+        assertTrue(results.stream().noneMatch(MailSenderProvider.SendMailResult::isSent));
+        assertEquals(125, provider.getCurrentRate(), 0.001);
+    }
+
+    @Test
+    @DisplayName("Should not retry errors caused by the request itself")
+    void sendBatch_ShouldNotRetryClientErrors() {
+        ScriptedAdapter adapter = new ScriptedAdapter(10, status(422));
+        ThrottledMailSenderProvider provider = new ThrottledMailSenderProvider(adapter, 1000, 3);
+
+        List<MailSenderProvider.SendMailResult> results = provider.sendBatch(requests(2));
+
+        assertEquals(List.of(2), adapter.chunkSizes);
+        assertTrue(results.stream().noneMatch(MailSenderProvider.SendMailResult::isSent));
+        assertEquals(1000, provider.getCurrentRate(), 0.001);
+    }
+}
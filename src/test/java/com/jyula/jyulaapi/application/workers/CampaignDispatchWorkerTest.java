@@ -0,0 +1,72 @@
+package com.jyula.jyulaapi.application.workers;
+
+import com.jyula.jyulaapi.core.entities.Campaign;
+import com.jyula.jyulaapi.core.entities.CampaignDispatchJob;
+import com.jyula.jyulaapi.core.repositories.CampaignDispatchJobRepository;
+import com.jyula.jyulaapi.core.services.CampaignDeliveryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CampaignDispatchWorkerTest {
+
+    @Mock
+    private CampaignDispatchJobRepository jobRepository;
+    @Mock
+    private CampaignDeliveryService deliveryService;
+    @Mock
+    private ThreadPoolTaskExecutor executor;
+    @Mock
+    private ThreadPoolExecutor threadPoolExecutor;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private CampaignDispatchWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        worker = new CampaignDispatchWorker(jobRepository, deliveryService, executor, transactionManager, 300);
+    }
+
+    @Test
+    @DisplayName("Should put a claimed job back to pending when the executor rejects it")
+    void poll_ShouldReleaseRejectedJobs() {
+        Campaign campaign = Campaign.builder().build();
+        campaign.setId(3L);
+        CampaignDispatchJob job = CampaignDispatchJob.builder()
+                .status(CampaignDispatchJob.JobStatus.PENDING).campaign(campaign).build();
+        job.setId(7L);
+
+        when(executor.getActiveCount()).thenReturn(0);
+        when(executor.getThreadPoolExecutor()).thenReturn(threadPoolExecutor);
+        when(threadPoolExecutor.getQueue()).thenReturn(new LinkedBlockingQueue<>());
+        when(executor.getMaxPoolSize()).thenReturn(1);
+        when(jobRepository.lockClaimable(anyInt(), any())).thenReturn(List.of(job));
+        when(jobRepository.findById(7L)).thenReturn(Optional.of(job));
+        doThrow(new TaskRejectedException("full")).when(executor).execute(any(Runnable.class));
+
+        worker.poll();
+
+        assertEquals(CampaignDispatchJob.JobStatus.PENDING, job.getStatus());
+        assertEquals(0, job.getAttempts());
+        assertNull(job.getHeartbeatAt());
+        verifyNoInteractions(deliveryService);
+    }
+}
@@ -0,0 +1,105 @@
+package com.jyula.jyulaapi.application.workers;
+
+import com.jyula.jyulaapi.core.enterprise.CompressedText;
+import com.jyula.jyulaapi.core.providers.MailSenderProvider;
+import com.jyula.jyulaapi.core.repositories.SentEmailBulkWriter;
+import com.jyula.jyulaapi.core.services.SentEmailLeaseKeeper;
+import com.jyula.jyulaapi.core.services.TemplateRenderer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SentEmailRetryWorkerTest {
+
+    @Mock
+    private SentEmailBulkWriter sentEmailWriter;
+    @Mock
+    private MailSenderProvider mailSenderProvider;
+
+    @Captor
+    private ArgumentCaptor<List<MailSenderProvider.SendMailRequest>> requestsCaptor;
+
+    private SentEmailRetryWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        worker = new SentEmailRetryWorker(sentEmailWriter, mailSenderProvider,
+                new SentEmailLeaseKeeper(sentEmailWriter), new TemplateRenderer(), 2);
+    }
+
+    @Test
+    @DisplayName("Should re-send claimed emails and record their results")
+    void sweep_ShouldResendClaimedEmails() {
+        List<MailSenderProvider.SendMailResult> results = List.of(
+                MailSenderProvider.SendMailResult.sent(null, new MailSenderProvider.SendMailResponse("id")));
+
+        when(sentEmailWriter.claimDue(2)).thenReturn(
+                List.of(new SentEmailBulkWriter.ClaimedEmail(
+                        7L, "test@example.com", "Ana", 3L, 1, "Subject", null,
+                        CompressedText.compress("Hello {{name}}"), null)));
+        when(mailSenderProvider.sendBatch(anyList())).thenReturn(results);
+
+        worker.sweep();
+
+        verify(mailSenderProvider).sendBatch(requestsCaptor.capture());
+        MailSenderProvider.SendMailRequest request = requestsCaptor.getValue().get(0);
+        assertEquals("test@example.com", request.getTo());
+        assertEquals("Subject", request.getSubject());
+        assertEquals("Hello Ana", request.getContent());
+        verify(sentEmailWriter).applyResults(List.of(7L), results);
+        verify(sentEmailWriter, times(1)).claimDue(2);
+    }
+
+    @Test
+    @DisplayName("Should keep claiming while full batches come back")
+    void sweep_ShouldDrainFullBatches() {
+        when(sentEmailWriter.claimDue(2)).thenReturn(
+                List.of(new SentEmailBulkWriter.ClaimedEmail(1L, "a@example.com", "A", 3L, 1, "S", "C", null, null),
+                        new SentEmailBulkWriter.ClaimedEmail(2L, "b@example.com", "B", 3L, 1, "S", "C", null, null)),
+                List.of());
+        when(mailSenderProvider.sendBatch(anyList())).thenReturn(List.of());
+
+        worker.sweep();
+
+        verify(sentEmailWriter, times(2)).claimDue(2);
+        verify(sentEmailWriter).applyResults(eq(List.of(1L, 2L)), any());
+    }
+
+    @Test
+    @DisplayName("Should not call the provider when nothing is due")
+    void sweep_ShouldDoNothingWhenNothingIsDue() {
+        when(sentEmailWriter.claimDue(2)).thenReturn(List.of());
+
+        worker.sweep();
+
+        verifyNoInteractions(mailSenderProvider);
+        verify(sentEmailWriter, never()).applyResults(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should settle emails abandoned on their last attempt before claiming due ones")
+    void sweep_ShouldFailExhaustedEmailsFirst() {
+        when(sentEmailWriter.failExhausted()).thenReturn(3);
+        when(sentEmailWriter.claimDue(2)).thenReturn(List.of());
+
+        worker.sweep();
+
+        InOrder order = inOrder(sentEmailWriter);
+        order.verify(sentEmailWriter).failExhausted();
+        order.verify(sentEmailWriter).claimDue(2);
+    }
+}
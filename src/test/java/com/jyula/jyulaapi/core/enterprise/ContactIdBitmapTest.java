@@ -0,0 +1,96 @@
+package com.jyula.jyulaapi.core.enterprise;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContactIdBitmapTest {
+
+    private static long[] sorted(TreeSet<Long> ids) {
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    @Test
+    @DisplayName("Should match set semantics for union, intersection and difference across group sizes")
+    void setAlgebra_ShouldMatchTreeSet() {
+        Random random = new Random(42);
+
+        for (int round = 0; round < 50; round++) {
+            TreeSet<Long> left = new TreeSet<>();
+            TreeSet<Long> right = new TreeSet<>();
+            int bound = round % 2 == 0 ? 200_000 : 70_000;
+
+            for (int i = 0; i < 12_000; i++) {
+                left.add((long) random.nextInt(bound));
+                right.add((long) random.nextInt(bound));
+            }
+
+            ContactIdBitmap a = ContactIdBitmap.of(left);
+            ContactIdBitmap b = ContactIdBitmap.of(right);
+
+            TreeSet<Long> union = new TreeSet<>(left);
+            union.addAll(right);
+            TreeSet<Long> intersection = new TreeSet<>(left);
+            intersection.retainAll(right);
+            TreeSet<Long> difference = new TreeSet<>(left);
+            difference.removeAll(right);
+
+            assertArrayEquals(sorted(union), ContactIdBitmap.union(List.of(a, b)).toArray());
+            assertArrayEquals(sorted(intersection), ContactIdBitmap.union(List.of(a)).and(b).toArray());
+            assertArrayEquals(sorted(difference), ContactIdBitmap.union(List.of(a)).andNot(b).toArray());
+            assertEquals(left.size(), a.cardinality());
+        }
+    }
+
+    @Test
+    @DisplayName("Should add, remove and look up single ids")
+    void addRemove_ShouldTrackMembership() {
+        ContactIdBitmap bitmap = ContactIdBitmap.of(1, 2, 70_000);
+
+        assertFalse(bitmap.add(2));
+        assertTrue(bitmap.remove(70_000));
+        assertFalse(bitmap.remove(70_000));
+        assertTrue(bitmap.contains(1));
+        assertFalse(bitmap.contains(70_000));
+        assertArrayEquals(new long[]{1, 2}, bitmap.toArray());
+        assertThrows(IllegalArgumentException.class, () -> bitmap.add(-1));
+    }
+
+    @Test
+    @DisplayName("Should round-trip through serialization and store consecutive ids as runs")
+    void serialize_ShouldRoundTripCompactly() {
+        ContactIdBitmap consecutive = ContactIdBitmap.of(LongStream.rangeClosed(1_000, 101_000).toArray());
+        ContactIdBitmap sparse = ContactIdBitmap.of(3, 65_536, 9_000_000_000L);
+
+        byte[] data = consecutive.serialize();
+
+        assertTrue(data.length < 64, "was " + data.length + " bytes");
+        assertEquals(consecutive, ContactIdBitmap.deserialize(data));
+        assertEquals(sparse, ContactIdBitmap.deserialize(sparse.serialize()));
+        assertThrows(IllegalArgumentException.class, () -> ContactIdBitmap.deserialize(new byte[]{9}));
+    }
+
+    @Test
+    @DisplayName("Should write the portable Roaring format after the version byte")
+    void serialize_ShouldBeReadableAsPortableRoaring() throws IOException {
+        ContactIdBitmap bitmap = ContactIdBitmap.of(LongStream.rangeClosed(1, 5_000).map(id -> id * 3).toArray());
+        bitmap.add(9_000_000_000L);
+
+        byte[] data = bitmap.serialize();
+        Roaring64NavigableMap portable = new Roaring64NavigableMap();
+        portable.deserializePortable(new DataInputStream(new ByteArrayInputStream(data, 1, data.length - 1)));
+
+        assertEquals(2, data[0]);
+        assertArrayEquals(bitmap.toArray(), portable.toArray());
+    }
+}
@@ -0,0 +1,79 @@
+package com.jyula.jyulaapi.core.enterprise;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContactImportReaderTest {
+
+    private static List<ContactImportReader.Row> readAll(String input, ContactImportReader.Format format)
+            throws IOException {
+        List<ContactImportReader.Row> rows = new ArrayList<>();
+
+        try (ContactImportReader reader = ContactImportReader.open(
+                new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), format)) {
+            ContactImportReader.Row row;
+            while ((row = reader.next()) != null) {
+                rows.add(row);
+            }
+        }
+
+        return rows;
+    }
+
+    @Test
+    @DisplayName("Should read CSV columns by header with quoted commas, quotes and line breaks")
+    void csv_ShouldHandleQuotedFields() throws IOException {
+        String csv = "\uFEFFid,Email,Name\r\n"
+                + "1,ana@example.com,\"Ana \"\"A\"\", Silva\"\r\n"
+                + "\r\n"
+                + "2,bo@example.com,\"Bo\nSecond line\"\n"
+                + "3,cy@example.com,Cy";
+
+        List<ContactImportReader.Row> rows = readAll(csv, ContactImportReader.Format.CSV);
+
+        assertEquals(List.of(
+                new ContactImportReader.Row(2, "ana@example.com", "Ana \"A\", Silva", null),
+                new ContactImportReader.Row(4, "bo@example.com", "Bo\nSecond line", null),
+                new ContactImportReader.Row(6, "cy@example.com", "Cy", null)), rows);
+    }
+
+    @Test
+    @DisplayName("Should reject a CSV header without an email column")
+    void csv_ShouldRequireEmailColumn() {
+        assertThrows(BussinessException.class, () -> readAll("name\nAna\n", ContactImportReader.Format.CSV));
+    }
+
+    @Test
+    @DisplayName("Should read NDJSON lines and flag malformed ones instead of failing")
+    void ndjson_ShouldFlagMalformedLines() throws IOException {
+        String ndjson = "{\"email\":\"ana@example.com\",\"name\":\"Ana\"}\n"
+                + "\n"
+                + "{\"email\":\n"
+                + "[1]\n"
+                + "{\"email\":\"bo@example.com\"}\n";
+
+        List<ContactImportReader.Row> rows = readAll(ndjson, ContactImportReader.Format.NDJSON);
+
+        assertEquals(List.of(
+                new ContactImportReader.Row(1, "ana@example.com", "Ana", null),
+                new ContactImportReader.Row(3, null, null, "malformed JSON"),
+                new ContactImportReader.Row(4, null, null, "not a JSON object"),
+                new ContactImportReader.Row(5, "bo@example.com", null, null)), rows);
+    }
+
+    @Test
+    @DisplayName("Should pick the format from the request content type")
+    void format_ShouldFollowContentType() {
+        assertEquals(ContactImportReader.Format.CSV, ContactImportReader.Format.fromContentType("text/csv; charset=utf-8"));
+        assertEquals(ContactImportReader.Format.NDJSON, ContactImportReader.Format.fromContentType("application/x-ndjson"));
+        assertThrows(BussinessException.class, () -> ContactImportReader.Format.fromContentType("image/png"));
+    }
+}
@@ -0,0 +1,59 @@
+package com.jyula.jyulaapi.core.enterprise;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HtmlPreprocessorTest {
+
+    @Test
+    @DisplayName("Should inline simple selectors by specificity, keeping the element's own style last")
+    void inlineCss_ShouldApplyRules() {
+        String html = "<html><head><style>p { color: red; } .big { font-size: 20px } #main { margin: 0 }"
+                + " @media (max-width: 600px) { p { color: blue } }</style></head>"
+                + "<body><p class=\"big\" style=\"padding: 1px;\">Hi</p><div id=\"main\">x</div></body></html>";
+
+        String inlined = HtmlPreprocessor.inlineCss(html);
+
+        assertTrue(inlined.contains("<p class=\"big\" style=\"color: red; font-size: 20px; padding: 1px\">Hi</p>"));
+        assertTrue(inlined.contains("<div id=\"main\" style=\"margin: 0\">x</div>"));
+        assertTrue(inlined.contains("<body>"));
+        assertTrue(inlined.contains("@media"));
+    }
+
+    @Test
+    @DisplayName("Should accept an element that repeats a class")
+    void inlineCss_ShouldAllowRepeatedClasses() {
+        String html = "<style>.btn { color: red }</style><a class=\"btn btn\">Go</a>";
+
+        assertTrue(HtmlPreprocessor.inlineCss(html).contains("<a class=\"btn btn\" style=\"color: red\">Go</a>"));
+    }
+
+    @Test
+    @DisplayName("Should drop comments and collapse whitespace outside pre blocks")
+    void minify_ShouldCollapseWhitespace() {
+        String html = "<div>\n  <!-- note -->\n  <p>a   b</p>\n<pre>x\n  y</pre><!--[if mso]>z<![endif]--></div>";
+
+        assertEquals("<div> <p>a b</p> <pre>x\n  y</pre><!--[if mso]>z<![endif]--></div>", HtmlPreprocessor.minify(html));
+    }
+
+    @Test
+    @DisplayName("Should derive a readable text part with links and line breaks")
+    void toText_ShouldKeepStructure() {
+        String html = "<h1>Title</h1><p>Hello&nbsp;<b>Ana</b><br>see <a href=\"https://x.io\">site</a></p>"
+                + "<p>Bye &amp; thanks</p>";
+
+        assertEquals("Title\n\nHello Ana\nsee site (https://x.io)\n\nBye & thanks", HtmlPreprocessor.toText(html));
+    }
+
+    @Test
+    @DisplayName("Should leave placeholders untouched in both parts")
+    void process_ShouldKeepPlaceholders() {
+        HtmlPreprocessor.Result result = HtmlPreprocessor.process(
+                "<style>.x { color: red }</style>\n<p class=\"x\">Hello   {{name}}</p>");
+
+        assertTrue(result.html().contains("<p class=\"x\" style=\"color: red\">Hello {{name}}</p>"));
+        assertEquals("Hello {{name}}", result.text());
+    }
+}
@@ -0,0 +1,38 @@
+package com.jyula.jyulaapi.core.enterprise;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetPageTest {
+
+    @Test
+    @DisplayName("Should round-trip a cursor through its opaque token")
+    void cursor_ShouldRoundTrip() {
+        KeysetPage.Cursor cursor = new KeysetPage.Cursor(LocalDateTime.of(2024, 5, 6, 7, 8, 9, 123_456_000), 42L);
+
+        String token = cursor.encode();
+
+        assertFalse(token.contains("|"));
+        assertEquals(cursor, KeysetPage.Cursor.decode(token));
+    }
+
+    @Test
+    @DisplayName("Should reject tokens that are not cursors")
+    void cursor_ShouldRejectGarbage() {
+        assertThrows(BussinessException.class, () -> KeysetPage.Cursor.decode("not a cursor"));
+        assertThrows(BussinessException.class, () -> KeysetPage.Cursor.decode("bm8tc2VwYXJhdG9y"));
+    }
+
+    @Test
+    @DisplayName("Should keep the next cursor when mapping the content")
+    void map_ShouldKeepCursor() {
+        KeysetPage<Integer> page = new KeysetPage<>(List.of(1, 2), 2, "abc");
+
+        assertEquals(new KeysetPage<>(List.of("1", "2"), 2, "abc"), page.map(String::valueOf));
+    }
+}
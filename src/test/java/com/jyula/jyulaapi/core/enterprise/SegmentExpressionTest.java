@@ -0,0 +1,60 @@
+package com.jyula.jyulaapi.core.enterprise;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentExpressionTest {
+
+    private static final SegmentExpression A_OR_B_MINUS_C = SegmentExpression.operation("exclude", List.of(
+            SegmentExpression.operation("union", List.of(SegmentExpression.members(1L), SegmentExpression.members(2L))),
+            SegmentExpression.members(3L)));
+
+    @Test
+    @DisplayName("Should render nested operations as one set query with placeholders in order")
+    void toSql_ShouldRenderSetOperations() {
+        List<Object> parameters = new ArrayList<>();
+
+        String sql = A_OR_B_MINUS_C.toSql(parameters);
+
+        assertEquals("((select contact_id from segments_contacts where segment_id = ?) union "
+                + "(select contact_id from segments_contacts where segment_id = ?)) except "
+                + "(select contact_id from segments_contacts where segment_id = ?)", sql);
+        assertEquals(List.of(1L, 2L, 3L), parameters);
+        assertEquals(Set.of(1L, 2L, 3L), A_OR_B_MINUS_C.segmentIds());
+    }
+
+    @Test
+    @DisplayName("Should evaluate on bitmaps without changing them")
+    void evaluate_ShouldMatchSetSemantics() {
+        Map<Long, ContactIdBitmap> members = Map.of(
+                1L, ContactIdBitmap.of(1, 2, 3),
+                2L, ContactIdBitmap.of(3, 4, 5),
+                3L, ContactIdBitmap.of(2, 5, 9));
+
+        SegmentExpression intersect = SegmentExpression.operation("INTERSECT",
+                List.of(SegmentExpression.members(1L), SegmentExpression.members(2L)));
+
+        assertEquals(ContactIdBitmap.of(1, 3, 4), A_OR_B_MINUS_C.evaluate(members));
+        assertEquals(ContactIdBitmap.of(3), intersect.evaluate(members));
+        assertEquals(ContactIdBitmap.of(1, 2, 3), members.get(1L));
+    }
+
+    @Test
+    @DisplayName("Should reject unknown operators and operations with fewer than two operands")
+    void operation_ShouldValidateOperatorAndOperands() {
+        BussinessException unknown = assertThrows(BussinessException.class, () ->
+                SegmentExpression.operation("xor", List.of(SegmentExpression.members(1L), SegmentExpression.members(2L))));
+        BussinessException single = assertThrows(BussinessException.class, () ->
+                SegmentExpression.operation("union", List.of(SegmentExpression.members(1L))));
+
+        assertEquals("Unsupported operator = xor", unknown.getMessage());
+        assertEquals("union needs at least two operands", single.getMessage());
+    }
+}
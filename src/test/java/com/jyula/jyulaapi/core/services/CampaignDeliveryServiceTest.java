@@ -0,0 +1,282 @@
+package com.jyula.jyulaapi.core.services;
+
+import com.jyula.jyulaapi.core.enterprise.BussinessException;
+import com.jyula.jyulaapi.core.entities.*;
+import com.jyula.jyulaapi.core.providers.MailSenderProvider;
+import com.jyula.jyulaapi.core.repositories.CampaignRepository;
+import com.jyula.jyulaapi.core.repositories.ContactRepository;
+import com.jyula.jyulaapi.core.repositories.SentEmailBulkWriter;
+import com.jyula.jyulaapi.core.repositories.SentEmailRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CampaignDeliveryServiceTest {
+
+    @Mock
+    private MailSenderProvider mailSenderProvider;
+    @Mock
+    private CampaignRepository campaignRepository;
+    @Mock
+    private ContactRepository contactRepository;
+    @Mock
+    private SentEmailBulkWriter sentEmailWriter;
+    @Mock
+    private SentEmailRepository sentEmailRepository;
+
+    @Captor
+    private ArgumentCaptor<List<MailSenderProvider.SendMailResult>> resultsCaptor;
+
+    @Captor
+    private ArgumentCaptor<List<MailSenderProvider.SendMailRequest>> requestsCaptor;
+
+    private CampaignDeliveryService deliveryService;
+
+    private CampaignProgressTracker progressTracker;
+
+    private SentEmailLeaseKeeper leaseKeeper;
+
+    private Campaign campaign;
+
+    @BeforeEach
+    void setUp() {
+        progressTracker = new CampaignProgressTracker(3600);
+        leaseKeeper = new SentEmailLeaseKeeper(sentEmailWriter);
+        deliveryService = new CampaignDeliveryService(
+                new MailDispatcher(mailSenderProvider, Runnable::run, 2),
+                campaignRepository,
+                contactRepository,
+                sentEmailWriter,
+                sentEmailRepository,
+                leaseKeeper,
+                progressTracker,
+                new TemplateRenderer(),
+                100
+        );
+
+        TemplateContent template = new TemplateContent();
+        template.setContent("Test content");
+        template.setAbout("Test subject");
+        template.setTemplate(new Template());
+
+        campaign = new Campaign();
+        campaign.setId(1L);
+        campaign.setName("Test Campaign");
+        campaign.setTemplateContent(template);
+    }
+
+    private static ContactRepository.Recipient recipient(Long id, String email) {
+        return new ContactRepository.Recipient() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getEmail() {
+                return email;
+            }
+
+            @Override
+            public String getName() {
+                return null;
+            }
+        };
+    }
+
+    private static SentEmailRepository.StatusCount count(SentEmail.EmailStatus status, long count) {
+        return new SentEmailRepository.StatusCount() {
+            @Override
+            public SentEmail.EmailStatus getStatus() {
+                return status;
+            }
+
+            @Override
+            public Long getCount() {
+                return count;
+            }
+        };
+    }
+
+    @Test
+    @DisplayName("Should send the campaign to every contact and mark emails as sent")
+    void shouldSendCampaignToContacts() {
+        when(campaignRepository.findForDelivery(1L)).thenReturn(Optional.of(campaign));
+        when(contactRepository.findCampaignRecipients(1L, 0L, 100))
+                .thenReturn(List.of(recipient(1L, "test@example.com")));
+        when(sentEmailWriter.insertProcessing(1L, List.of(1L))).thenReturn(Map.of(1L, 10L));
+        when(mailSenderProvider.sendBatch(any())).thenAnswer(i -> {
+            List<MailSenderProvider.SendMailRequest> requests = i.getArgument(0);
+            return requests.stream()
+                    .map(request -> MailSenderProvider.SendMailResult.sent(
+                            request, new MailSenderProvider.SendMailResponse("id")))
+                    .toList();
+        });
+
+        deliveryService.deliver(1L);
+
+        verify(mailSenderProvider).sendBatch(any());
+        verify(sentEmailWriter).applyResults(eq(List.of(10L)), resultsCaptor.capture());
+        assertTrue(resultsCaptor.getValue().get(0).isSent());
+
+        CampaignProgressTracker.Progress progress = progressTracker.find(1L).orElseThrow();
+        assertEquals(1, progress.queued());
+        assertEquals(1, progress.sent());
+        assertEquals(0, progress.failed());
+        assertTrue(progress.finished());
+    }
+
+    @Test
+    @DisplayName("Should renew the lease of a chunk while the provider holds it and stop once it is recorded")
+    void shouldRenewLeaseWhileChunkIsInFlight() {
+        when(campaignRepository.findForDelivery(1L)).thenReturn(Optional.of(campaign));
+        when(contactRepository.findCampaignRecipients(1L, 0L, 100))
+                .thenReturn(List.of(recipient(1L, "test@example.com")));
+        when(sentEmailWriter.insertProcessing(1L, List.of(1L))).thenReturn(Map.of(1L, 10L));
+        when(mailSenderProvider.sendBatch(any())).thenAnswer(i -> {
+            leaseKeeper.renew();
+            return List.of(MailSenderProvider.SendMailResult.sent(null, new MailSenderProvider.SendMailResponse("id")));
+        });
+
+        deliveryService.deliver(1L);
+        leaseKeeper.renew();
+
+        verify(sentEmailWriter, times(1)).renewLeases(List.of(10L));
+    }
+
+    @Test
+    @DisplayName("Should handle mail sending failure")
+    void shouldHandleMailSendingFailure() {
+        MailSenderProvider.SendMailRequest sendMailRequest = MailSenderProvider.SendMailRequest.builder()
+                .from("onboarding@resend.dev")
+                .content("Test content")
+                .to("test@example.com")
+                .subject("Test subject")
+                .build();
+
+        when(campaignRepository.findForDelivery(1L)).thenReturn(Optional.of(campaign));
+        when(contactRepository.findCampaignRecipients(1L, 0L, 100))
+                .thenReturn(List.of(recipient(1L, "test@example.com")));
+        when(sentEmailWriter.insertProcessing(1L, List.of(1L))).thenReturn(Map.of(1L, 10L));
+        when(mailSenderProvider.sendBatch(any())).thenReturn(List.of(MailSenderProvider.SendMailResult.failed(
+                sendMailRequest,
+                new MailSenderProvider.SendMailException(sendMailRequest, new RuntimeException("Failed to send")))));
+
+        deliveryService.deliver(1L);
+
+        verify(sentEmailWriter).applyResults(eq(List.of(10L)), resultsCaptor.capture());
+        assertFalse(resultsCaptor.getValue().get(0).isSent());
+        assertEquals(1, progressTracker.find(1L).orElseThrow().failed());
+    }
+
+    @Test
+    @DisplayName("Should read recipients page by page after the last delivered contact id")
+    void shouldPageRecipientsByKeyset() {
+        when(campaignRepository.findForDelivery(1L)).thenReturn(Optional.of(campaign));
+        when(contactRepository.findCampaignRecipients(1L, 0L, 100))
+                .thenReturn(List.of(recipient(3L, "a@example.com"), recipient(7L, "b@example.com")));
+        when(contactRepository.findCampaignRecipients(1L, 7L, 100))
+                .thenReturn(List.of(recipient(9L, "c@example.com")));
+        when(sentEmailWriter.insertProcessing(1L, List.of(3L, 7L))).thenReturn(Map.of(3L, 30L, 7L, 70L));
+        when(sentEmailWriter.insertProcessing(1L, List.of(9L))).thenReturn(Map.of(9L, 90L));
+        when(mailSenderProvider.sendBatch(any())).thenReturn(List.of());
+
+        deliveryService.deliver(1L);
+
+        verify(contactRepository).findCampaignRecipients(1L, 9L, 100);
+        verify(mailSenderProvider, times(2)).sendBatch(any());
+        verify(campaignRepository).advanceDeliveryCursor(1L, 9L);
+    }
+
+    @Test
+    @DisplayName("Should resume after the delivery cursor and skip recipients that already have a row")
+    void shouldResumeFromDeliveryCursor() {
+        campaign.setDeliveryCursor(7L);
+
+        when(campaignRepository.findForDelivery(1L)).thenReturn(Optional.of(campaign));
+        when(sentEmailRepository.countByStatus(1L)).thenReturn(List.of(
+                count(SentEmail.EmailStatus.SENT, 7), count(SentEmail.EmailStatus.FAILED, 1),
+                count(SentEmail.EmailStatus.PROCESSING, 1)));
+        when(contactRepository.findCampaignRecipients(1L, 7L, 100))
+                .thenReturn(List.of(recipient(8L, "a@example.com"), recipient(9L, "b@example.com")));
+        when(sentEmailWriter.insertProcessing(1L, List.of(8L, 9L))).thenReturn(Map.of(9L, 90L));
+        when(mailSenderProvider.sendBatch(any())).thenAnswer(i -> {
+            List<MailSenderProvider.SendMailRequest> requests = i.getArgument(0);
+            return requests.stream()
+                    .map(request -> MailSenderProvider.SendMailResult.sent(
+                            request, new MailSenderProvider.SendMailResponse("id")))
+                    .toList();
+        });
+
+        deliveryService.deliver(1L);
+
+        verify(contactRepository, never()).findCampaignRecipients(1L, 0L, 100);
+        verify(mailSenderProvider).sendBatch(requestsCaptor.capture());
+        assertEquals(List.of("b@example.com"),
+                requestsCaptor.getValue().stream().map(MailSenderProvider.SendMailRequest::getTo).toList());
+        verify(sentEmailWriter).applyResults(eq(List.of(90L)), any());
+        verify(campaignRepository).advanceDeliveryCursor(1L, 9L);
+
+        CampaignProgressTracker.Progress progress = progressTracker.find(1L).orElseThrow();
+        assertEquals(9, progress.queued());
+        assertEquals(8, progress.sent());
+        assertEquals(1, progress.failed());
+    }
+
+    @Test
+    @DisplayName("Should not call the provider when every recipient of a chunk already has a row")
+    void shouldSkipChunkAlreadyClaimed() {
+        when(campaignRepository.findForDelivery(1L)).thenReturn(Optional.of(campaign));
+        when(contactRepository.findCampaignRecipients(1L, 0L, 100))
+                .thenReturn(List.of(recipient(1L, "test@example.com")));
+        when(sentEmailWriter.insertProcessing(1L, List.of(1L))).thenReturn(Map.of());
+
+        deliveryService.deliver(1L);
+
+        verifyNoInteractions(mailSenderProvider);
+        verify(campaignRepository).advanceDeliveryCursor(1L, 1L);
+    }
+
+    @Test
+    @DisplayName("Should throw exception when campaign not found")
+    void shouldThrowExceptionWhenCampaignNotFound() {
+        when(campaignRepository.findForDelivery(1L)).thenReturn(Optional.empty());
+
+        BussinessException exception = assertThrows(BussinessException.class,
+                () -> deliveryService.deliver(1L));
+
+        assertEquals("Campaign with id = 1 not found", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should report a heartbeat after every chunk")
+    void shouldHeartbeatAfterEveryChunk() {
+        Runnable heartbeat = mock(Runnable.class);
+
+        when(campaignRepository.findForDelivery(1L)).thenReturn(Optional.of(campaign));
+        when(contactRepository.findCampaignRecipients(1L, 0L, 100))
+                .thenReturn(List.of(recipient(1L, "a@example.com")));
+        when(contactRepository.findCampaignRecipients(1L, 1L, 100))
+                .thenReturn(List.of(recipient(2L, "b@example.com")));
+        when(contactRepository.findCampaignRecipients(1L, 2L, 100)).thenReturn(List.of());
+        when(sentEmailWriter.insertProcessing(eq(1L), any())).thenReturn(Map.of());
+
+        deliveryService.deliver(1L, heartbeat);
+
+        verify(heartbeat, times(2)).run();
+    }
+}
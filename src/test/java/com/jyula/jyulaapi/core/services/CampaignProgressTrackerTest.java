@@ -0,0 +1,80 @@
+package com.jyula.jyulaapi.core.services;
+
+import com.jyula.jyulaapi.core.providers.MailSenderProvider;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CampaignProgressTrackerTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final CampaignProgressTracker tracker = new CampaignProgressTracker(60, clock::get);
+
+    private static MailSenderProvider.SendMailResult sent() {
+        return MailSenderProvider.SendMailResult.sent(null, new MailSenderProvider.SendMailResponse("id"));
+    }
+
+    private static MailSenderProvider.SendMailResult failed() {
+        MailSenderProvider.SendMailRequest request = MailSenderProvider.SendMailRequest.builder()
+                .from("from@example.com")
+                .to("to@example.com")
+                .subject("Subject")
+                .content("Content")
+                .build();
+
+        return MailSenderProvider.SendMailResult.failed(
+                request, new MailSenderProvider.SendMailException(request, new RuntimeException("Failed")));
+    }
+
+    @Test
+    @DisplayName("Should count queued, sent and failed emails and the rate since the start")
+    void shouldCountDeliveryProgress() {
+        tracker.started(1L);
+        tracker.queued(1L, 3);
+        tracker.completed(1L, List.of(sent(), sent(), failed()));
+        clock.set(TimeUnit.SECONDS.toNanos(2));
+
+        CampaignProgressTracker.Progress progress = tracker.find(1L).orElseThrow();
+
+        assertEquals(3, progress.queued());
+        assertEquals(2, progress.sent());
+        assertEquals(1, progress.failed());
+        assertEquals(1.5, progress.ratePerSecond(), 0.001);
+        assertFalse(progress.finished());
+    }
+
+    @Test
+    @DisplayName("Should keep the outcomes of an earlier run out of the rate of a resumed delivery")
+    void shouldSeedResumedDelivery() {
+        tracker.started(1L, 10, 2);
+        tracker.queued(1L, 2);
+        tracker.completed(1L, List.of(sent(), sent()));
+        clock.set(TimeUnit.SECONDS.toNanos(2));
+
+        CampaignProgressTracker.Progress progress = tracker.find(1L).orElseThrow();
+
+        assertEquals(14, progress.queued());
+        assertEquals(12, progress.sent());
+        assertEquals(2, progress.failed());
+        assertEquals(1.0, progress.ratePerSecond(), 0.001);
+    }
+
+    @Test
+    @DisplayName("Should drop finished deliveries once the retention has passed")
+    void shouldEvictFinishedDeliveries() {
+        tracker.started(1L);
+        tracker.started(2L);
+        tracker.finished(1L);
+
+        clock.set(TimeUnit.SECONDS.toNanos(61));
+        tracker.evictFinished();
+
+        assertTrue(tracker.find(1L).isEmpty());
+        assertTrue(tracker.find(2L).isPresent());
+    }
+}
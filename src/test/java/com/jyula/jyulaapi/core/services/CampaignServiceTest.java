@@ -1,8 +1,8 @@
 package com.jyula.jyulaapi.core.services;
 
 import com.jyula.jyulaapi.core.enterprise.BussinessException;
+import com.jyula.jyulaapi.core.enterprise.ContactIdBitmap;
 import com.jyula.jyulaapi.core.entities.*;
-import com.jyula.jyulaapi.core.providers.MailSenderProvider;
 import com.jyula.jyulaapi.core.repositories.*;
 import com.jyula.jyulaapi.core.representations.CampaignRepresentation;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,7 +14,7 @@ import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.util.Optional;
+import java.util.List;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -25,9 +25,7 @@ import static org.mockito.Mockito.*;
 class CampaignServiceTest {
 
     @Mock
-    private MailSenderProvider mailSenderProvider;
-    @Mock
-    private TemplateContentRepository templateContentRepository;
+    private TemplateContentCache templateContentCache;
     @Mock
     private ContactRepository contactRepository;
     @Mock
@@ -35,30 +33,35 @@ class CampaignServiceTest {
     @Mock
     private CampaignRepository campaignRepository;
     @Mock
-    private SentEmailRepository sentEmailRepository;
+    private CampaignDispatchJobRepository dispatchJobRepository;
+    @Mock
+    private CountEstimator countEstimator;
+    @Mock
+    private SegmentBitmapStore segmentBitmapStore;
 
     @Captor
     private ArgumentCaptor<Campaign> campaignCaptor;
     @Captor
-    private ArgumentCaptor<SentEmail> sentEmailCaptor;
+    private ArgumentCaptor<CampaignDispatchJob> jobCaptor;
 
     private CampaignService campaignService;
 
     @BeforeEach
     void setUp() {
         campaignService = new CampaignService(
-                mailSenderProvider,
-                templateContentRepository,
+                templateContentCache,
                 contactRepository,
                 segmentRepository,
                 campaignRepository,
-                sentEmailRepository
+                dispatchJobRepository,
+                countEstimator,
+                segmentBitmapStore
         );
     }
 
     @Test
-    @DisplayName("Should successfully send campaign to contacts")
-    void shouldSuccessfullySendCampaignToContacts() {
+    @DisplayName("Should persist campaign and enqueue a dispatch job for contacts")
+    void shouldPersistCampaignAndEnqueueDispatchJobForContacts() {
         TemplateContent template = new TemplateContent();
         template.setContent("Test content");
         template.setAbout("Test subject");
@@ -68,9 +71,9 @@ class CampaignServiceTest {
         contact.setId(1L);
         contact.setEmail("test@example.com");
 
-        when(templateContentRepository.findLatest(any())).thenReturn(template);
-        when(contactRepository.findById(1L)).thenReturn(Optional.of(contact));
-        when(sentEmailRepository.save(any())).thenAnswer(i -> i.getArgument(0));
+        when(templateContentCache.findLatest(any())).thenReturn(template);
+        when(contactRepository.findAllById(List.of(1L))).thenReturn(List.of(contact));
+        when(campaignRepository.save(any())).thenAnswer(i -> i.getArgument(0));
 
         CampaignRepresentation.CreateCampaign representation = new CampaignRepresentation.CreateCampaign();
         representation.setName("Test Campaign");
@@ -80,19 +83,24 @@ class CampaignServiceTest {
 
         campaignService.send(representation);
 
-        verify(mailSenderProvider).send(any());
-        verify(sentEmailRepository, times(2)).save(sentEmailCaptor.capture());
         verify(campaignRepository).save(campaignCaptor.capture());
+        verify(dispatchJobRepository).save(jobCaptor.capture());
 
         Campaign savedCampaign = campaignCaptor.getValue();
         assertEquals("Test Campaign", savedCampaign.getName());
         assertEquals(1, savedCampaign.getContacts().size());
+        assertEquals(1L, savedCampaign.getAudienceSize());
+        assertSame(template, savedCampaign.getTemplateContent());
+
+        CampaignDispatchJob job = jobCaptor.getValue();
+        assertEquals(CampaignDispatchJob.JobStatus.PENDING, job.getStatus());
+        assertSame(savedCampaign, job.getCampaign());
     }
 
     @Test
     @DisplayName("Should throw exception when contact not found")
     void shouldThrowExceptionWhenContactNotFound() {
-        when(templateContentRepository.findLatest(any())).thenReturn(new TemplateContent());
+        when(templateContentCache.findLatest(any())).thenReturn(new TemplateContent());
 
         CampaignRepresentation.CreateCampaign representation = new CampaignRepresentation.CreateCampaign();
         representation.setTemplateId(1L);
@@ -108,7 +116,7 @@ class CampaignServiceTest {
     @Test
     @DisplayName("Should throw exception when segment not found")
     void shouldThrowExceptionWhenSegmentNotFound() {
-        when(templateContentRepository.findLatest(any())).thenReturn(new TemplateContent());
+        when(templateContentCache.findLatest(any())).thenReturn(new TemplateContent());
 
         CampaignRepresentation.CreateCampaign representation = new CampaignRepresentation.CreateCampaign();
         representation.setTemplateId(1L);
@@ -122,8 +130,8 @@ class CampaignServiceTest {
     }
 
     @Test
-    @DisplayName("Should handle mail sending failure")
-    void shouldHandleMailSendingFailure() {
+    @DisplayName("Should persist campaign and enqueue a dispatch job for segments")
+    void shouldPersistCampaignAndEnqueueDispatchJobForSegments() {
         TemplateContent template = new TemplateContent();
         template.setContent("Test content");
         template.setAbout("Test subject");
@@ -133,66 +141,53 @@ class CampaignServiceTest {
         contact.setId(1L);
         contact.setEmail("test@example.com");
 
-        MailSenderProvider.SendMailRequest sendMailRequest = MailSenderProvider.SendMailRequest.builder()
-                .from("onboarding@resend.dev")
-                .content(template.getContent())
-                .to(contact.getEmail())
-                .subject(template.getAbout())
-                .build();
+        Segment segment = new Segment();
+        segment.setId(1L);
+        segment.setContacts(Set.of(contact));
 
-        when(templateContentRepository.findLatest(any())).thenReturn(template);
-        when(contactRepository.findById(1L)).thenReturn(Optional.of(contact));
-        when(sentEmailRepository.save(any())).thenAnswer(i -> i.getArgument(0));
-        doThrow(new MailSenderProvider.SendMailException(sendMailRequest, new RuntimeException("Failed to send")))
-                .when(mailSenderProvider).send(any());
+        when(templateContentCache.findLatest(any())).thenReturn(template);
+        when(segmentRepository.findAllById(List.of(1L))).thenReturn(List.of(segment));
+        when(segmentBitmapStore.union(Set.of(1L))).thenReturn(ContactIdBitmap.of(1L, 5L));
+        when(campaignRepository.save(any())).thenAnswer(i -> i.getArgument(0));
 
         CampaignRepresentation.CreateCampaign representation = new CampaignRepresentation.CreateCampaign();
         representation.setName("Test Campaign");
         representation.setTemplateId(1L);
         representation.setSendTo(new CampaignRepresentation.CreateCampaign.SendTo());
+        representation.getSendTo().setSegments(Set.of(1L));
         representation.getSendTo().setContacts(Set.of(1L));
+        when(contactRepository.findAllById(List.of(1L))).thenReturn(List.of(contact));
 
         campaignService.send(representation);
 
-        verify(sentEmailRepository, times(2)).save(sentEmailCaptor.capture());
-        SentEmail savedEmail = sentEmailCaptor.getValue();
-        assertEquals(SentEmail.EmailStatus.FAILED, savedEmail.getStatus());
+        verify(campaignRepository).save(campaignCaptor.capture());
+        verify(dispatchJobRepository).save(any(CampaignDispatchJob.class));
+
+        Campaign savedCampaign = campaignCaptor.getValue();
+        assertEquals("Test Campaign", savedCampaign.getName());
+        assertEquals(1, savedCampaign.getSegments().size());
+        assertEquals(2L, savedCampaign.getAudienceSize());
     }
 
     @Test
-    @DisplayName("Should successfully send campaign to segments")
-    void shouldSuccessfullySendCampaignToSegments() {
-        TemplateContent template = new TemplateContent();
-        template.setContent("Test content");
-        template.setAbout("Test subject");
-        template.setTemplate(new Template());
-
+    @DisplayName("Should report every missing contact id in a single exception")
+    void shouldReportAllMissingContactIds() {
         Contact contact = new Contact();
-        contact.setId(1L);
-        contact.setEmail("test@example.com");
+        contact.setId(2L);
 
-        Segment segment = new Segment();
-        segment.setId(1L);
-        segment.setContacts(Set.of(contact));
-
-        when(templateContentRepository.findLatest(any())).thenReturn(template);
-        when(segmentRepository.findById(1L)).thenReturn(Optional.of(segment));
-        when(sentEmailRepository.save(any())).thenAnswer(i -> i.getArgument(0));
+        when(templateContentCache.findLatest(any())).thenReturn(new TemplateContent());
+        when(contactRepository.findAllById(any())).thenReturn(List.of(contact));
 
         CampaignRepresentation.CreateCampaign representation = new CampaignRepresentation.CreateCampaign();
-        representation.setName("Test Campaign");
         representation.setTemplateId(1L);
         representation.setSendTo(new CampaignRepresentation.CreateCampaign.SendTo());
-        representation.getSendTo().setSegments(Set.of(1L));
+        representation.getSendTo().setContacts(Set.of(1L, 2L, 3L));
 
-        campaignService.send(representation);
-
-        verify(mailSenderProvider).send(any());
-        verify(sentEmailRepository, times(2)).save(sentEmailCaptor.capture());
-        verify(campaignRepository).save(campaignCaptor.capture());
+        BussinessException exception = assertThrows(BussinessException.class,
+                () -> campaignService.send(representation));
 
-        Campaign savedCampaign = campaignCaptor.getValue();
-        assertEquals("Test Campaign", savedCampaign.getName());
-        assertEquals(1, savedCampaign.getSegments().size());
+        assertEquals("Contacts with ids = [1, 3] not found", exception.getMessage());
+        verify(contactRepository, times(1)).findAllById(any());
+        verify(campaignRepository, never()).save(any());
     }
-} 
\ No newline at end of file
+}
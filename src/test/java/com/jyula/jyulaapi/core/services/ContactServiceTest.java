@@ -1,7 +1,9 @@
 package com.jyula.jyulaapi.core.services;
 
 import com.jyula.jyulaapi.core.enterprise.BussinessException;
+import com.jyula.jyulaapi.core.enterprise.ContactImportReader;
 import com.jyula.jyulaapi.core.entities.Contact;
+import com.jyula.jyulaapi.core.repositories.ContactImportWriter;
 import com.jyula.jyulaapi.core.repositories.ContactRepository;
 import com.jyula.jyulaapi.core.representations.ContactRepresentation;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,7 +14,14 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.modelmapper.ModelMapper;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -27,11 +36,17 @@ class ContactServiceTest {
     @Mock
     private ModelMapper mapper;
 
+    @Mock
+    private ContactImportWriter importWriter;
+
+    @Mock
+    private CountEstimator countEstimator;
+
     private ContactService contactService;
 
     @BeforeEach
     void setUp() {
-        contactService = new ContactService(mapper, repository);
+        contactService = new ContactService(mapper, repository, importWriter, countEstimator, 500);
     }
 
     @Test
@@ -68,4 +83,75 @@ class ContactServiceTest {
         verify(repository, times(1)).save(existingContact);
         assertNotNull(existingContact.getUpdatedAt());
     }
-} 
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should stage valid import rows normalized and report rejected ones with their line")
+    void importContacts_ShouldSkipInvalidRows() {
+        String csv = "name,email\n"
+                + "Ana, Ana@Example.com \n"
+                + "No Email,\n"
+                + "Bad,not-an-email\n"
+                + ",bo@example.com\n"
+                + "\"Cy, Jr\",cy@example.com\n";
+
+        List<ContactImportReader.Row> staged = new ArrayList<>();
+        when(importWriter.importContacts(any())).thenAnswer(invocation -> {
+            ContactImportWriter.RowSource source = invocation.getArgument(0);
+            ContactImportReader.Row row;
+            while ((row = source.next()) != null) {
+                staged.add(row);
+            }
+            return new ContactImportWriter.Result(staged.size(), 1, 0, 0);
+        });
+
+        ContactService.ImportResult result = contactService.importContacts(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), ContactImportReader.Format.CSV);
+
+        assertEquals(List.of("ana@example.com", "cy@example.com"),
+                staged.stream().map(ContactImportReader.Row::email).toList());
+        assertEquals("Cy, Jr", staged.get(1).name());
+        assertEquals(1, result.inserted());
+        assertEquals(1, result.unchanged());
+        assertEquals(3, result.rejected());
+        assertEquals(List.of(new ContactService.Rejection(3, "email cannot be empty"),
+                        new ContactService.Rejection(4, "email = not-an-email is not valid"),
+                        new ContactService.Rejection(5, "name cannot be empty")),
+                result.rejections());
+    }
+
+    private static Contact contact(long id, String email, String name) {
+        Contact contact = Contact.builder().email(email).name(name)
+                .createdAt(LocalDateTime.of(2024, 1, 2, 3, 4, 5)).build();
+        contact.setId(id);
+        return contact;
+    }
+
+    @Test
+    @DisplayName("Should stream contacts as CSV with the configured fetch size")
+    void exportContacts_ShouldWriteCsv() throws Exception {
+        when(repository.stream("name+like+a", Contact.class, 500)).thenReturn(Stream.of(
+                contact(1L, "ana@example.com", "Ana"),
+                contact(2L, "bo@example.com", "Bo \"B\", Jr")));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        long exported = contactService.exportContacts("name+like+a", ContactImportReader.Format.CSV, output);
+
+        assertEquals(2, exported);
+        assertEquals("id,email,name,created_at\n"
+                + "1,ana@example.com,Ana,2024-01-02T03:04:05\n"
+                + "2,bo@example.com,\"Bo \"\"B\"\", Jr\",2024-01-02T03:04:05\n",
+                output.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Should stream contacts as one JSON object per line")
+    void exportContacts_ShouldWriteNdjson() throws Exception {
+        when(repository.stream(null, Contact.class, 500)).thenReturn(Stream.of(contact(1L, "ana@example.com", "Ána")));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        contactService.exportContacts(null, ContactImportReader.Format.NDJSON, output);
+
+        assertEquals("{\"id\":1,\"email\":\"ana@example.com\",\"name\":\"Ána\",\"createdAt\":\"2024-01-02T03:04:05\"}\n",
+                output.toString(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,113 @@
+package com.jyula.jyulaapi.core.services;
+
+import com.jyula.jyulaapi.core.enterprise.BussinessException;
+import com.jyula.jyulaapi.core.enterprise.CountMode;
+import com.jyula.jyulaapi.core.entities.Contact;
+import com.jyula.jyulaapi.core.repositories.ContactRepository;
+import com.querydsl.core.types.Predicate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CountEstimatorTest {
+
+    @Mock
+    private ContactRepository repository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private CountEstimator countEstimator;
+
+    @BeforeEach
+    void setUp() {
+        countEstimator = new CountEstimator(jdbcTemplate, 60, 10);
+    }
+
+    private void stubSlice(PageRequest pageable, int rows, boolean hasNext) {
+        List<Contact> content = Stream.generate(Contact::new).limit(rows).toList();
+        when(repository.findSlice(any(Predicate.class), eq(pageable))).thenReturn(new SliceImpl<>(content, pageable, hasNext));
+    }
+
+    @Test
+    @DisplayName("Should return a slice without counting when count is none")
+    void none_ShouldSkipCount() {
+        PageRequest pageable = PageRequest.of(0, 2);
+        stubSlice(pageable, 2, true);
+
+        Slice<Contact> slice = countEstimator.findAll(repository, Contact.class, null, pageable, CountMode.NONE);
+
+        assertFalse(slice instanceof Page);
+        assertTrue(slice.hasNext());
+        verify(repository, never()).count(any(Predicate.class));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Should use the planner estimate for unfiltered listings, but never below the rows already seen")
+    void estimate_ShouldUsePlannerStatistics() {
+        PageRequest pageable = PageRequest.of(3, 10);
+        stubSlice(pageable, 10, true);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), eq("contacts"))).thenReturn(5000L, 20L);
+
+        Page<Contact> estimated = (Page<Contact>) countEstimator.findAll(repository, Contact.class, null, pageable, CountMode.ESTIMATE);
+        Page<Contact> corrected = (Page<Contact>) countEstimator.findAll(repository, Contact.class, null, pageable, CountMode.ESTIMATE);
+
+        assertEquals(5000, estimated.getTotalElements());
+        assertEquals(41, corrected.getTotalElements());
+        verify(repository, never()).count(any(Predicate.class));
+    }
+
+    @Test
+    @DisplayName("Should count filtered listings once and serve the count from the cache afterwards")
+    void estimate_ShouldCacheFilteredCount() {
+        PageRequest pageable = PageRequest.of(0, 2);
+        stubSlice(pageable, 2, true);
+        when(repository.count(any(Predicate.class))).thenReturn(7L);
+
+        Page<Contact> first = (Page<Contact>) countEstimator.findAll(repository, Contact.class, "name+like+ana", pageable, CountMode.ESTIMATE);
+        Page<Contact> second = (Page<Contact>) countEstimator.findAll(repository, Contact.class, "name+like+ana", pageable, CountMode.ESTIMATE);
+
+        assertEquals(7, first.getTotalElements());
+        assertEquals(7, second.getTotalElements());
+        verify(repository, times(1)).count(any(Predicate.class));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Should derive the exact total on the last page without estimating")
+    void estimate_ShouldBeExactOnLastPage() {
+        PageRequest pageable = PageRequest.of(2, 10);
+        stubSlice(pageable, 4, false);
+
+        Page<Contact> page = (Page<Contact>) countEstimator.findAll(repository, Contact.class, null, pageable, CountMode.ESTIMATE);
+
+        assertEquals(24, page.getTotalElements());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Should reject an unknown count mode")
+    void fromName_ShouldRejectUnknownMode() {
+        assertEquals(CountMode.EXACT, CountMode.fromName("exact"));
+        assertThrows(BussinessException.class, () -> CountMode.fromName("precise"));
+    }
+}
@@ -0,0 +1,74 @@
+package com.jyula.jyulaapi.core.services;
+
+import com.jyula.jyulaapi.core.providers.MailSenderProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MailDispatcherTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Should never run more provider calls at once than maxInFlight")
+    void submit_ShouldBoundConcurrentProviderCalls() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        MailSenderProvider provider = new MailSenderProvider() {
+            @Override
+            public SendMailResponse send(SendMailRequest request) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public List<SendMailResult> sendBatch(List<SendMailRequest> requests) {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                return List.of();
+            }
+        };
+
+        MailDispatcher dispatcher = new MailDispatcher(provider, executor, 2);
+        List<CompletableFuture<List<MailSenderProvider.SendMailResult>>> futures = new ArrayList<>();
+
+        CompletableFuture<Void> producer = CompletableFuture.runAsync(() -> {
+            for (int i = 0; i < 6; i++) {
+                futures.add(dispatcher.submit(List.of()));
+            }
+        });
+
+        Thread.sleep(200);
+        assertFalse(producer.isDone());
+        assertEquals(2, running.get());
+
+        release.countDown();
+        producer.get(5, TimeUnit.SECONDS);
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+        assertEquals(6, futures.size());
+        assertEquals(2, peak.get());
+    }
+}
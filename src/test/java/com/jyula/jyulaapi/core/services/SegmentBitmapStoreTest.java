@@ -0,0 +1,65 @@
+package com.jyula.jyulaapi.core.services;
+
+import com.jyula.jyulaapi.core.enterprise.ContactIdBitmap;
+import com.jyula.jyulaapi.core.entities.SegmentBitmap;
+import com.jyula.jyulaapi.core.repositories.SegmentBitmapRepository;
+import com.jyula.jyulaapi.core.repositories.SegmentRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SegmentBitmapStoreTest {
+
+    @Mock
+    private SegmentBitmapRepository segmentBitmapRepository;
+
+    @Mock
+    private SegmentRepository segmentRepository;
+
+    @InjectMocks
+    private SegmentBitmapStore segmentBitmapStore;
+
+    @Test
+    @DisplayName("Should share-lock segments before building their missing bitmaps from the join table")
+    void members_ShouldLockBeforeBuildingMissingBitmaps() {
+        SegmentBitmap stored = SegmentBitmap.builder().segmentId(1L).build();
+        stored.setBitmap(ContactIdBitmap.of(1L, 2L));
+
+        when(segmentBitmapRepository.findBySegmentIdIn(List.of(1L, 2L))).thenReturn(List.of(stored));
+        when(segmentRepository.findMemberIds(2L)).thenReturn(List.of(3L));
+
+        Map<Long, ContactIdBitmap> members = segmentBitmapStore.members(List.of(1L, 2L));
+
+        assertEquals(Map.of(1L, ContactIdBitmap.of(1L, 2L), 2L, ContactIdBitmap.of(3L)), members);
+
+        InOrder order = inOrder(segmentRepository, segmentBitmapRepository);
+        order.verify(segmentRepository).findAllForShare(List.of(2L));
+        order.verify(segmentRepository).findMemberIds(2L);
+        order.verify(segmentBitmapRepository).insertIfAbsent(eq(2L), any(), eq(1L));
+        verify(segmentRepository, never()).findMemberIds(1L);
+    }
+
+    @Test
+    @DisplayName("Should not lock anything when every bitmap is stored")
+    void members_ShouldNotLockWhenAllBitmapsStored() {
+        SegmentBitmap stored = SegmentBitmap.builder().segmentId(1L).build();
+        stored.setBitmap(ContactIdBitmap.of(5L));
+
+        when(segmentBitmapRepository.findBySegmentIdIn(List.of(1L))).thenReturn(List.of(stored));
+
+        assertEquals(ContactIdBitmap.of(5L), segmentBitmapStore.members(1L));
+        verify(segmentRepository, never()).findAllForShare(any());
+    }
+}
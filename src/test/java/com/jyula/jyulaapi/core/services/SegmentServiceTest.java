@@ -1,10 +1,13 @@
 package com.jyula.jyulaapi.core.services;
 
 import com.jyula.jyulaapi.core.enterprise.BussinessException;
+import com.jyula.jyulaapi.core.enterprise.ContactIdBitmap;
+import com.jyula.jyulaapi.core.enterprise.SegmentExpression;
 import com.jyula.jyulaapi.core.entities.Contact;
 import com.jyula.jyulaapi.core.entities.Segment;
 import com.jyula.jyulaapi.core.entities.security.User;
 import com.jyula.jyulaapi.core.repositories.ContactRepository;
+import com.jyula.jyulaapi.core.repositories.SegmentMembershipWriter;
 import com.jyula.jyulaapi.core.repositories.SegmentRepository;
 import com.jyula.jyulaapi.core.repositories.security.UserRepository;
 import com.jyula.jyulaapi.core.representations.SegmentRepresentation;
@@ -17,7 +20,11 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.modelmapper.ModelMapper;
 
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -40,6 +47,15 @@ class SegmentServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private CountEstimator countEstimator;
+
+    @Mock
+    private SegmentBitmapStore segmentBitmapStore;
+
+    @Mock
+    private SegmentMembershipWriter membershipWriter;
+
     @InjectMocks
     private SegmentService segmentService;
 
@@ -77,8 +93,9 @@ class SegmentServiceTest {
     @DisplayName("Should successfully create a new segment with valid user and contact data")
     void save_ShouldCreateNewSegment_WhenValidDataProvided() {
         when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
-        when(contactRepository.findByEmail("test@example.com")).thenReturn(Optional.of(testContact));
+        when(contactRepository.findByEmailIn(List.of("test@example.com"))).thenReturn(List.of(testContact));
         when(segmentRepository.save(any(Segment.class))).thenReturn(testSegment);
+        when(membershipWriter.add(testSegment, List.of(1L))).thenReturn(List.of(1L));
 
         Segment result = segmentService.save(createSegmentRepresentation);
 
@@ -86,6 +103,7 @@ class SegmentServiceTest {
         assertEquals(testSegment.getId(), result.getId());
         assertEquals(testSegment.getName(), result.getName());
         verify(segmentRepository).save(any(Segment.class));
+        verify(segmentBitmapStore).replaced(1L, List.of(1L));
     }
 
     @Test
@@ -104,9 +122,10 @@ class SegmentServiceTest {
     @Test
     @DisplayName("Should successfully update an existing segment with new data")
     void update_ShouldUpdateSegment_WhenValidDataProvided() {
-        when(segmentRepository.findById(1L)).thenReturn(Optional.of(testSegment));
-        when(contactRepository.findByEmail("test@example.com")).thenReturn(Optional.of(testContact));
+        when(segmentRepository.findForUpdate(1L)).thenReturn(Optional.of(testSegment));
+        when(contactRepository.findByEmailIn(List.of("test@example.com"))).thenReturn(List.of(testContact));
         when(segmentRepository.save(any(Segment.class))).thenReturn(testSegment);
+        when(segmentBitmapStore.members(1L)).thenReturn(ContactIdBitmap.of(1L));
 
         Segment result = segmentService.update(1L, createSegmentRepresentation);
 
@@ -116,10 +135,31 @@ class SegmentServiceTest {
         verify(segmentRepository).save(any(Segment.class));
     }
 
+    @Test
+    @DisplayName("Should write only the difference between the current and the new members on update")
+    void update_ShouldWriteOnlyMembershipDifference() {
+        Contact newContact = Contact.builder()
+                .id(2L)
+                .email("new@example.com")
+                .build();
+        createSegmentRepresentation.setContacts(new LinkedHashSet<>(List.of("test@example.com", "new@example.com")));
+
+        when(segmentRepository.findForUpdate(1L)).thenReturn(Optional.of(testSegment));
+        when(contactRepository.findByEmailIn(List.of("test@example.com", "new@example.com")))
+                .thenReturn(List.of(testContact, newContact));
+        when(segmentBitmapStore.members(1L)).thenReturn(ContactIdBitmap.of(1L, 3L, 4L));
+        when(membershipWriter.remove(testSegment, List.of(3L, 4L))).thenReturn(List.of(3L, 4L));
+        when(membershipWriter.add(testSegment, List.of(2L))).thenReturn(List.of(2L));
+
+        segmentService.update(1L, createSegmentRepresentation);
+
+        verify(segmentBitmapStore).changed(1L, List.of(2L), List.of(3L, 4L));
+    }
+
     @Test
     @DisplayName("Should throw BusinessException when attempting to update non-existent segment")
     void update_ShouldThrowException_WhenSegmentNotFound() {
-        when(segmentRepository.findById(999L)).thenReturn(Optional.empty());
+        when(segmentRepository.findForUpdate(999L)).thenReturn(Optional.empty());
 
         BussinessException exception = assertThrows(BussinessException.class, () -> {
             segmentService.update(999L, createSegmentRepresentation);
@@ -137,22 +177,37 @@ class SegmentServiceTest {
                 .email("new@example.com")
                 .build();
 
-        when(segmentRepository.findById(1L)).thenReturn(Optional.of(testSegment));
-        when(contactRepository.findByEmail("new@example.com")).thenReturn(Optional.of(newContact));
+        when(segmentRepository.findForUpdate(1L)).thenReturn(Optional.of(testSegment));
+        when(contactRepository.findByEmailIn(List.of("new@example.com"))).thenReturn(List.of(newContact));
         when(segmentRepository.save(any(Segment.class))).thenReturn(testSegment);
+        when(membershipWriter.add(testSegment, List.of(2L))).thenReturn(List.of(2L));
 
         Segment result = segmentService.addContacts(1L, newEmails);
 
         assertNotNull(result);
         verify(segmentRepository).save(any(Segment.class));
+        verify(segmentBitmapStore).added(1L, List.of(2L));
+    }
+
+    @Test
+    @DisplayName("Should remove contacts with one statement and record only those that were members")
+    void removeContacts_ShouldRemoveMembers() {
+        when(segmentRepository.findForUpdate(1L)).thenReturn(Optional.of(testSegment));
+        when(contactRepository.findByEmailIn(List.of("test@example.com"))).thenReturn(List.of(testContact));
+        when(membershipWriter.remove(testSegment, List.of(1L))).thenReturn(List.of());
+        when(segmentRepository.save(any(Segment.class))).thenReturn(testSegment);
+
+        segmentService.removeContacts(1L, Set.of("test@example.com"));
+
+        verify(segmentBitmapStore).removed(1L, List.of());
     }
 
     @Test
     @DisplayName("Should throw BusinessException when attempting to add non-existent contacts to segment")
     void addContacts_ShouldThrowException_WhenContactNotFound() {
         Set<String> invalidEmails = Set.of("nonexistent@example.com");
-        when(segmentRepository.findById(1L)).thenReturn(Optional.of(testSegment));
-        when(contactRepository.findByEmail("nonexistent@example.com")).thenReturn(Optional.empty());
+        when(segmentRepository.findForUpdate(1L)).thenReturn(Optional.of(testSegment));
+        when(contactRepository.findByEmailIn(List.of("nonexistent@example.com"))).thenReturn(List.of());
 
         BussinessException exception = assertThrows(BussinessException.class, () -> {
             segmentService.addContacts(1L, invalidEmails);
@@ -160,4 +215,93 @@ class SegmentServiceTest {
 
         assertEquals("Contacts with email = nonexistent@example.com not found", exception.getMessage());
     }
-} 
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should resolve emails case-insensitively in one lookup and report every missing email")
+    void addContacts_ShouldReportAllMissingEmails() {
+        Set<String> emails = new LinkedHashSet<>(List.of(" Test@Example.com", "b@example.com", "A@example.com"));
+        when(segmentRepository.findForUpdate(1L)).thenReturn(Optional.of(testSegment));
+        when(contactRepository.findByEmailIn(List.of("test@example.com", "b@example.com", "a@example.com")))
+                .thenReturn(List.of(testContact));
+
+        BussinessException exception = assertThrows(BussinessException.class, () ->
+                segmentService.addContacts(1L, emails));
+
+        assertEquals("Contacts with emails = [A@example.com, b@example.com] not found", exception.getMessage());
+        verify(contactRepository, times(1)).findByEmailIn(any());
+        verify(segmentRepository, never()).save(any(Segment.class));
+    }
+
+    @Test
+    @DisplayName("Should count members of many segments with one grouped query, defaulting to zero")
+    void countMembers_ShouldDefaultToZero() {
+        SegmentRepository.MemberCount count = mock(SegmentRepository.MemberCount.class);
+        when(count.getSegmentId()).thenReturn(1L);
+        when(count.getContacts()).thenReturn(3L);
+        when(segmentRepository.countMembers(List.of(1L, 2L))).thenReturn(List.of(count));
+
+        Map<Long, Long> counts = segmentService.countMembers(List.of(1L, 2L));
+
+        assertEquals(Map.of(1L, 3L, 2L, 0L), counts);
+        verify(segmentRepository, times(1)).countMembers(any());
+    }
+
+    @Test
+    @DisplayName("Should throw BusinessException when listing members of non-existent segment")
+    void findMembers_ShouldThrowException_WhenSegmentNotFound() {
+        when(segmentRepository.existsById(999L)).thenReturn(false);
+
+        BussinessException exception = assertThrows(BussinessException.class, () ->
+                segmentService.findMembers(999L, "", 10));
+
+        assertEquals("Segment with id = 999 not found", exception.getMessage());
+        verifyNoInteractions(contactRepository);
+    }
+
+    @Test
+    @DisplayName("Should materialize a composed segment in the database and store the bitmap computed from its operands")
+    void compose_ShouldWriteMembersAndBitmap() {
+        Segment other = Segment.builder().id(2L).name("Other").build();
+        Segment composed = Segment.builder().id(3L).name("Composed").contacts(new HashSet<>()).build();
+        SegmentRepresentation.ComposeSegment representation = composeRepresentation("exclude", 1L, 2L);
+        SegmentExpression expression = representation.getExpression().toSegmentExpression();
+
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(segmentRepository.findAllForShare(Set.of(1L, 2L))).thenReturn(List.of(testSegment, other));
+        when(segmentBitmapStore.members(Set.of(1L, 2L)))
+                .thenReturn(Map.of(1L, ContactIdBitmap.of(1L, 2L), 2L, ContactIdBitmap.of(2L)));
+        when(segmentRepository.save(any(Segment.class))).thenReturn(composed);
+        when(membershipWriter.addComposed(composed, expression)).thenReturn(1);
+
+        Segment result = segmentService.compose(representation);
+
+        assertEquals(composed, result);
+        verify(segmentBitmapStore).replaced(3L, ContactIdBitmap.of(1L));
+        verifyNoInteractions(contactRepository);
+    }
+
+    @Test
+    @DisplayName("Should throw BusinessException naming every segment of the expression that does not exist")
+    void compose_ShouldThrowException_WhenSegmentsNotFound() {
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(segmentRepository.findAllForShare(Set.of(1L, 7L, 9L))).thenReturn(List.of(testSegment));
+
+        BussinessException exception = assertThrows(BussinessException.class, () ->
+                segmentService.compose(composeRepresentation("union", 9L, 1L, 7L)));
+
+        assertEquals("Segments with ids = [7, 9] not found", exception.getMessage());
+        verify(segmentRepository, never()).save(any(Segment.class));
+    }
+
+    private static SegmentRepresentation.ComposeSegment composeRepresentation(String operator, Long... segmentIds) {
+        List<SegmentRepresentation.Expression> operands = Arrays.stream(segmentIds)
+                .map(id -> SegmentRepresentation.Expression.builder().segment(id).build())
+                .toList();
+
+        return SegmentRepresentation.ComposeSegment.builder()
+                .username("testuser")
+                .name("Composed")
+                .expression(SegmentRepresentation.Expression.builder().operator(operator).operands(operands).build())
+                .build();
+    }
+}
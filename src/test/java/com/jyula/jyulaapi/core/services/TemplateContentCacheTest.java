@@ -0,0 +1,76 @@
+package com.jyula.jyulaapi.core.services;
+
+import com.jyula.jyulaapi.core.entities.TemplateContent;
+import com.jyula.jyulaapi.core.repositories.TemplateContentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TemplateContentCacheTest {
+
+    @Mock
+    private TemplateContentRepository templateContentRepository;
+
+    private TemplateContentCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new TemplateContentCache(templateContentRepository, 2, 2);
+    }
+
+    @Test
+    @DisplayName("Should query the latest content once and serve it from the cache afterwards")
+    void findLatest_ShouldCacheResult() {
+        TemplateContent content = new TemplateContent();
+        when(templateContentRepository.findLatest(1L)).thenReturn(content);
+
+        assertSame(content, cache.findLatest(1L));
+        assertSame(content, cache.findLatest(1L));
+
+        verify(templateContentRepository, times(1)).findLatest(1L);
+        assertEquals(1, cache.stats().latest().hits());
+        assertEquals(1, cache.stats().latest().misses());
+    }
+
+    @Test
+    @DisplayName("Should reload latest and versions of a template after it is invalidated")
+    void invalidate_ShouldDropEntriesOfTemplate() {
+        when(templateContentRepository.findLatest(1L)).thenReturn(new TemplateContent(), new TemplateContent());
+        when(templateContentRepository.findByVersion(1L, 1L)).thenReturn(new TemplateContent());
+
+        cache.findLatest(1L);
+        cache.findByVersion(1L, 1L);
+        cache.invalidate(1L);
+        cache.findLatest(1L);
+        cache.findByVersion(1L, 1L);
+
+        verify(templateContentRepository, times(2)).findLatest(1L);
+        verify(templateContentRepository, times(2)).findByVersion(1L, 1L);
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently used template when full and never cache missing rows")
+    void findLatest_ShouldStayBounded() {
+        when(templateContentRepository.findLatest(anyLong())).thenAnswer(i -> new TemplateContent());
+        when(templateContentRepository.findLatest(9L)).thenReturn(null);
+
+        cache.findLatest(1L);
+        cache.findLatest(2L);
+        cache.findLatest(1L);
+        cache.findLatest(3L);
+        cache.findLatest(9L);
+        cache.findLatest(9L);
+
+        assertEquals(2, cache.stats().latest().size());
+        cache.findLatest(2L);
+        verify(templateContentRepository, times(2)).findLatest(2L);
+        verify(templateContentRepository, times(2)).findLatest(9L);
+    }
+}
@@ -0,0 +1,83 @@
+package com.jyula.jyulaapi.core.services;
+
+import com.jyula.jyulaapi.core.entities.Template;
+import com.jyula.jyulaapi.core.entities.TemplateContent;
+import com.jyula.jyulaapi.core.providers.MailSenderProvider;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TemplateRendererTest {
+
+    private final TemplateRenderer renderer = new TemplateRenderer();
+
+    private static TemplateContent content(int version, String about, String body) {
+        Template template = new Template();
+        template.setId(1L);
+
+        return TemplateContent.builder()
+                .version(version)
+                .about(about)
+                .content(body)
+                .template(template)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Should render name, email and custom placeholders for each contact")
+    void shouldRenderPlaceholders() {
+        TemplateRenderer.Compiled compiled =
+                renderer.compiled(content(1, "Hi {{ name }}", "<p>{{name}} ({{email}}) {{plan}}{{missing}}</p>"));
+
+        assertEquals("<p>Ana (ana@example.com) pro</p>", compiled.body().render(
+                TemplateRenderer.values("Ana", "ana@example.com", Map.of("plan", "pro")), new StringBuilder()));
+
+        MailSenderProvider.SendMailRequest request = MailSenderProvider.SendMailRequest.builder()
+                .to("bo@example.com")
+                .personalization(compiled.personalize("<Bo>", "bo@example.com"))
+                .build();
+
+        assertEquals("<p>&lt;Bo&gt; (bo@example.com) </p>", request.getContent());
+        assertEquals("Hi <Bo>", request.getSubject());
+    }
+
+    @Test
+    @DisplayName("Should compile once per template version and replace the entry on a new version")
+    void shouldCachePerTemplateVersion() {
+        TemplateRenderer.Compiled first = renderer.compiled(content(1, "About", "v1"));
+
+        assertSame(first, renderer.compiled(content(1, "About", "v1")));
+
+        renderer.refresh(content(2, "About", "v2 {{name}}"));
+        TemplateRenderer.Compiled second = renderer.compiled(content(2, "About", "ignored"));
+
+        assertNotSame(first, second);
+        assertEquals("v2 Ana", second.body().render(
+                TemplateRenderer.values("Ana", "ana@example.com"), new StringBuilder()));
+    }
+
+    @Test
+    @DisplayName("Should only cache a refreshed version once its transaction commits")
+    void refresh_ShouldWaitForCommit() {
+        TemplateRenderer.Compiled first = renderer.compiled(content(1, "About", "v1"));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            renderer.refresh(content(2, "About", "v2"));
+
+            assertSame(first, renderer.compiled(content(1, "About", "v1")));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals("v2", renderer.compiled(content(2, "About", "ignored")).body().render(
+                TemplateRenderer.values("Ana", "ana@example.com"), new StringBuilder()));
+    }
+}
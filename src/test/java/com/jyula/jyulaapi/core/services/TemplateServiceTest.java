@@ -1,8 +1,11 @@
 package com.jyula.jyulaapi.core.services;
 
+import com.jyula.jyulaapi.core.enterprise.CompressedText;
 import com.jyula.jyulaapi.core.entities.Template;
+import com.jyula.jyulaapi.core.entities.TemplateBody;
 import com.jyula.jyulaapi.core.entities.TemplateContent;
 import com.jyula.jyulaapi.core.entities.security.User;
+import com.jyula.jyulaapi.core.repositories.TemplateBodyRepository;
 import com.jyula.jyulaapi.core.repositories.TemplateContentRepository;
 import com.jyula.jyulaapi.core.repositories.TemplateRepository;
 import com.jyula.jyulaapi.core.repositories.security.UserRepository;
@@ -15,6 +18,12 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -28,6 +37,14 @@ class TemplateServiceTest {
     private TemplateContentRepository templateContentRepository;
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private TemplateBodyRepository templateBodyRepository;
+    @Mock
+    private TemplateRenderer templateRenderer;
+    @Mock
+    private TemplateContentCache templateContentCache;
+    @Mock
+    private CountEstimator countEstimator;
 
     @InjectMocks
     private TemplateService templateService;
@@ -35,6 +52,7 @@ class TemplateServiceTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        when(templateBodyRepository.findByHash(any())).thenReturn(Optional.of(new TemplateBody()));
     }
 
     @Test
@@ -85,4 +103,54 @@ class TemplateServiceTest {
         });
         assertTrue(exception.getMessage().contains("Template with id = id not found"));
     }
-} 
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should store a new version's body compressed and share it when the body is unchanged")
+    void testUpdate_sharesUnchangedBody() {
+        Template template = Template.builder().build();
+        template.setId(1L);
+
+        TemplateContent latest = TemplateContent.builder().version(1).build();
+        TemplateBody stored = new TemplateBody();
+
+        TemplateRepresentation.CreateOrUpdateTemplate representation = mock(TemplateRepresentation.CreateOrUpdateTemplate.class);
+        when(representation.getName()).thenReturn("Template");
+        when(representation.getAbout()).thenReturn("New subject");
+        when(representation.getContent()).thenReturn("<p>Body</p>");
+        when(templateRepository.findById(1L)).thenReturn(Optional.of(template));
+        when(templateContentRepository.findLatest(1L)).thenReturn(latest);
+        when(templateBodyRepository.findByHash(CompressedText.hash("<p>Body</p>")))
+                .thenReturn(Optional.empty(), Optional.of(stored));
+
+        templateService.update(1L, representation);
+
+        ArgumentCaptor<byte[]> data = ArgumentCaptor.forClass(byte[].class);
+        verify(templateBodyRepository).insertIfAbsent(eq(CompressedText.hash("<p>Body</p>")), data.capture(), eq(11),
+                any(), eq(11), any());
+        assertEquals("<p>Body</p>", CompressedText.decompress(data.getValue()));
+
+        ArgumentCaptor<TemplateContent> saved = ArgumentCaptor.forClass(TemplateContent.class);
+        verify(templateContentRepository).save(saved.capture());
+        assertSame(stored, saved.getValue().getBody());
+        assertEquals(Integer.valueOf(2), saved.getValue().getVersion());
+        assertEquals("<p>Body</p>", saved.getValue().getContent());
+    }
+
+    @Test
+    @DisplayName("Should list versions through the summary projection and reject unknown templates")
+    void testGetVersions() {
+        Pageable pageable = PageRequest.of(0, 10);
+        Page<TemplateContentRepository.VersionSummary> versions = new PageImpl<>(
+                List.of(mock(TemplateContentRepository.VersionSummary.class)), pageable, 1);
+
+        when(templateRepository.existsById(1L)).thenReturn(true);
+        when(templateContentRepository.findVersions(1L, pageable)).thenReturn(versions);
+
+        assertSame(versions, templateService.getVersions(1L, pageable));
+
+        assertThrows(com.jyula.jyulaapi.core.enterprise.BussinessException.class,
+                () -> templateService.getVersions(2L, pageable));
+        verify(templateContentRepository, never()).findVersions(eq(2L), any());
+        verify(templateContentRepository, never()).findLatest(any());
+    }
+}